@@ -0,0 +1,68 @@
+package de.thm.spec2tool.mapper;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.thm.spec2tool.dto.ToolSetDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of a full conversion, from the posted map and from the raw document.
+ * <p>
+ * {@code spec} is either the name of a file in {@code examples/} or the number of operations of a synthetic spec.
+ * {@code fastPath} switches between the {@link FastOpenApiReader} and the full swagger parser.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OpenApiMapperBenchmark {
+
+    @Param({"json_placeholder_openApi.json", "100", "1000", "10000"})
+    private String spec;
+
+    @Param({"12"})
+    private int refDepth;
+
+    @Param({"true", "false"})
+    private boolean fastPath;
+
+    private OpenApiMapper mapper;
+    private Map<String, Object> specMap;
+    private String specRaw;
+
+    @Setup
+    public void setup() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        if (spec.endsWith(".json")) {
+            specRaw = Files.readString(Path.of("examples", spec));
+            specMap = objectMapper.readValue(specRaw, new TypeReference<>() {});
+        } else {
+            specMap = SyntheticSpecs.openApi(Integer.parseInt(spec), refDepth);
+            specRaw = objectMapper.writeValueAsString(specMap);
+        }
+        mapper = new OpenApiMapper(16, 256, 0, fastPath, ConversionLimits.NONE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mapper.shutdown();
+    }
+
+    @Benchmark
+    public ToolSetDto convertMap() {
+        return mapper.convert(specMap);
+    }
+
+    @Benchmark
+    public ToolSetDto convertRaw() {
+        return mapper.convert(specRaw);
+    }
+}
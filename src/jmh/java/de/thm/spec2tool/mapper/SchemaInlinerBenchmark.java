@@ -0,0 +1,48 @@
+package de.thm.spec2tool.mapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.parser.OpenAPIV3Parser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of resolving and inlining deep $ref graphs, without parsing. Every invocation uses a new inliner,
+ * so nothing is memoized between invocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchemaInlinerBenchmark {
+
+    @Param({"4", "16", "64"})
+    private int refDepth;
+
+    private OpenAPI api;
+    private Schema<?> entity;
+    private Schema<?> alias;
+
+    @Setup
+    public void setup() throws Exception {
+        Map<String, Object> spec = SyntheticSpecs.openApi(4, refDepth);
+        api = new OpenAPIV3Parser().readContents(new ObjectMapper().writeValueAsString(spec), null, null).getOpenAPI();
+        entity = new Schema<>().$ref("#/components/schemas/Entity0");
+        alias = new Schema<>().$ref("#/components/schemas/Alias0");
+    }
+
+    @Benchmark
+    public Map<String, Object> inline() {
+        return new SchemaInliner(api, 16).inline(entity);
+    }
+
+    @Benchmark
+    public Schema<?> resolveAliasChain() {
+        return new SchemaInliner(api, 16).resolve(alias);
+    }
+}
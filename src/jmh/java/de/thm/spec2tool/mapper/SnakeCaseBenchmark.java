@@ -0,0 +1,46 @@
+package de.thm.spec2tool.mapper;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the name normalization, which runs several times per tool. The private method is called through a
+ * constant method handle, which the JIT inlines like a direct call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnakeCaseBenchmark {
+
+    private static final MethodHandle TO_SNAKE_CASE;
+
+    static {
+        try {
+            TO_SNAKE_CASE = MethodHandles.privateLookupIn(OpenApiMapper.class, MethodHandles.lookup())
+                    .findStatic(OpenApiMapper.class, "toSnakeCase", MethodType.methodType(String.class, String.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final String[] names = {
+            "Find pet by ID",
+            "  Update an existing pet -- with form data!  ",
+            "getUserByName",
+            "This is a sample server Petstore server. You can find out more about Swagger at http://swagger.io",
+            ""
+    };
+
+    @Benchmark
+    public void toSnakeCase(Blackhole blackhole) throws Throwable {
+        for (String name : names) blackhole.consume((String) TO_SNAKE_CASE.invokeExact(name));
+    }
+}
@@ -0,0 +1,77 @@
+package de.thm.spec2tool.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.thm.spec2tool.cache.ConversionCache;
+import de.thm.spec2tool.cache.ToolRegistry;
+import de.thm.spec2tool.cache.ToolSetStore;
+import de.thm.spec2tool.dto.ToolSpecificationDto;
+import de.thm.spec2tool.mapper.ConversionLimits;
+import de.thm.spec2tool.mapper.OpenApiMapper;
+import de.thm.spec2tool.mapper.SchemaPool;
+import de.thm.spec2tool.mapper.ToolSetOptimizer;
+import de.thm.spec2tool.mapper.SyntheticSpecs;
+import de.thm.spec2tool.metrics.ConversionMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request path of {@code POST /convert} without the servlet container: read the request body, convert it
+ * through the service with or without cache, and write the response body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConversionPathBenchmark {
+
+    @Param({"json_placeholder_openApi.json", "1000"})
+    private String spec;
+
+    @Param({"false", "true"})
+    private boolean cache;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ExecutorService batchExecutor;
+    private ConversionService conversionService;
+    private byte[] request;
+
+    @Setup
+    public void setup() throws Exception {
+        Map<String, Object> specMap = spec.endsWith(".json")
+                ? objectMapper.readValue(Files.readString(Path.of("examples", spec)), Map.class)
+                : SyntheticSpecs.openApi(Integer.parseInt(spec), 12);
+        request = objectMapper.writeValueAsBytes(new ToolSpecificationDto("openapi", specMap));
+
+        batchExecutor = Executors.newSingleThreadExecutor();
+        ConversionCache conversionCache = new ConversionCache(cache ? 256 : 0, Duration.ofHours(1));
+        ToolSetStore toolSetStore = new ToolSetStore(false, Path.of("target", "toolsets"), DataSize.ofMegabytes(64));
+        ToolRegistry toolRegistry = new ToolRegistry(cache ? 256 : 0, Duration.ofHours(1));
+        SchemaPool schemaPool = new SchemaPool(true);
+        conversionService = new ConversionServiceImpl(new OpenApiMapper(16, 256, 0, true, ConversionLimits.NONE),
+                new ToolSetOptimizer(true, 20, 1000, DataSize.ofKilobytes(256), schemaPool), conversionCache,
+                toolSetStore, toolRegistry, batchExecutor, 500,
+                new ConversionMetrics(new SimpleMeterRegistry(), conversionCache, toolSetStore, toolRegistry, schemaPool));
+    }
+
+    @TearDown
+    public void tearDown() {
+        batchExecutor.shutdown();
+    }
+
+    @Benchmark
+    public byte[] convert() throws Exception {
+        ToolSpecificationDto specification = objectMapper.readValue(request, ToolSpecificationDto.class);
+        return objectMapper.writeValueAsBytes(conversionService.convert(specification.spec(), specification.format()));
+    }
+}
@@ -0,0 +1,150 @@
+package de.thm.spec2tool.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Small in-memory LRU cache with a fixed number of entries and a time to live per entry.
+ * Hits, misses and evictions are counted so callers can expose them as metrics.
+ * @param <K> Type of the keys.
+ * @param <V> Type of the cached values.
+ */
+public class BoundedCache<K, V> {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public BoundedCache(int maxEntries, Duration ttl) {
+        this.maxEntries = Math.max(0, maxEntries);
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Look up a value and mark it as recently used.
+     * @param key Key of the value.
+     * @return The cached value or null, if absent or expired.
+     */
+    public V get(K key) {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            if (entry.expiresAt - now <= 0) {
+                entries.remove(key);
+                evictions.increment();
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value;
+        }
+    }
+
+    /**
+     * Store a value with the default time to live. Evicts the least recently used entries if the cache is full.
+     * @param key Key of the value.
+     * @param value Value to cache.
+     */
+    public void put(K key, V value) {
+        put(key, value, ttlNanos);
+    }
+
+    /**
+     * Store a value which expires after the given time to live or the default one, whatever comes first.
+     * @param key Key of the value.
+     * @param value Value to cache.
+     * @param ttl Time to live of this entry.
+     */
+    public void put(K key, V value, Duration ttl) {
+        put(key, value, Math.min(ttlNanos, ttl.toNanos()));
+    }
+
+    private void put(K key, V value, long ttl) {
+        if (maxEntries == 0 || ttl <= 0) return;
+        long now = System.nanoTime();
+        synchronized (entries) {
+            entries.put(key, new Entry<>(value, now + ttl));
+            Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+            while (entries.size() > maxEntries && it.hasNext()) {
+                it.next();
+                it.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * @return The values which are not expired, without marking them as used.
+     */
+    public List<V> values() {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            List<V> values = new ArrayList<>(entries.size());
+            for (Entry<V> entry : entries.values()) if (entry.expiresAt - now > 0) values.add(entry.value);
+            return values;
+        }
+    }
+
+    /**
+     * Look up a value and mark it as recently used, e.g. to index a tool set which is not converted again.
+     * Neither a hit nor a miss is counted, and an expired value is left to {@link #get} and {@link #put} to evict.
+     * @return The cached value or null, if absent or expired.
+     */
+    public V peek(K key) {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            return entry != null && entry.expiresAt - now > 0 ? entry.value : null;
+        }
+    }
+
+    /**
+     * @return Whether a value is cached and not expired. Neither a hit nor a miss is counted.
+     */
+    public boolean contains(K key) {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            return entry != null && entry.expiresAt - now > 0;
+        }
+    }
+
+    public void remove(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    private record Entry<V>(V value, long expiresAt) {}
+}
@@ -0,0 +1,67 @@
+package de.thm.spec2tool.cache;
+
+import de.thm.spec2tool.dto.ToolSetDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Cache of converted tool sets, keyed by {@link SpecHash}. Cached tool sets are shared and must not be modified.
+ */
+@Component
+public class ConversionCache {
+
+    private final BoundedCache<String, ToolSetDto> cache;
+
+    Logger logger = LoggerFactory.getLogger(ConversionCache.class);
+
+    public ConversionCache(@Value("${spec2tool.cache.max-entries:256}") int maxEntries,
+                           @Value("${spec2tool.cache.ttl:1h}") Duration ttl) {
+        this.cache = new BoundedCache<>(maxEntries, ttl);
+    }
+
+    public ToolSetDto get(String key) {
+        ToolSetDto toolSet = cache.get(key);
+        logger.debug("Conversion cache {} for spec {}", toolSet == null ? "miss" : "hit", key);
+        return toolSet;
+    }
+
+    /**
+     * Look up a tool set without counting a hit or a miss, for lookups which are not conversions.
+     */
+    public ToolSetDto peek(String key) {
+        return cache.peek(key);
+    }
+
+    public boolean contains(String key) {
+        return cache.contains(key);
+    }
+
+    public void put(String key, ToolSetDto toolSet) {
+        cache.put(key, toolSet);
+    }
+
+    public List<ToolSetDto> values() {
+        return cache.values();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public long hits() {
+        return cache.hits();
+    }
+
+    public long misses() {
+        return cache.misses();
+    }
+
+    public long evictions() {
+        return cache.evictions();
+    }
+}
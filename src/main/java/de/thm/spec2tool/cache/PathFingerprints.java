@@ -0,0 +1,195 @@
+package de.thm.spec2tool.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Fingerprints of the single paths of a specification, used to find the paths which changed between two versions.
+ * <p>
+ * The fingerprint of a path covers everything its tools are built from: the path item, every component it
+ * references directly or transitively, and the parts of the document shared by all paths (version and servers).
+ * Every component is serialized and hashed only once, no matter how many paths reference it.
+ */
+public final class PathFingerprints {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String COMPONENTS_PREFIX = "#/components/";
+
+    private final Map<String, Object> components;
+    private final Map<String, String> fingerprints = new LinkedHashMap<>();
+    private final Map<String, Set<String>> references = new HashMap<>();
+    private final Map<String, byte[]> componentDigests = new HashMap<>();
+    private final Map<String, Set<String>> componentRefs = new HashMap<>();
+    private boolean componentRefsOnly = true;
+
+    private PathFingerprints(Map<String, Object> components) {
+        this.components = components;
+    }
+
+    /**
+     * Fingerprint every path of a specification.
+     * @param spec The API specification as Map of Strings to Objects.
+     * @return The fingerprints, in the order of the paths.
+     */
+    public static PathFingerprints of(Map<String, Object> spec) throws JsonProcessingException {
+        PathFingerprints result = new PathFingerprints(asMap(spec.get("components")));
+        byte[] shared = MAPPER.writeValueAsBytes(Arrays.asList(spec.get("openapi"), spec.get("servers")));
+        for (Map.Entry<String, Object> path : paths(spec).entrySet()) {
+            result.add(shared, path.getKey(), path.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * @param pathKey Key of a path, e.g. '/pets/{id}'.
+     * @return Hex encoded SHA-256 of the path, or null if the spec has no such path.
+     */
+    public String get(String pathKey) {
+        return fingerprints.get(pathKey);
+    }
+
+    /**
+     * @return Keys of all paths, in the order of the spec.
+     */
+    public Set<String> paths() {
+        return Collections.unmodifiableSet(fingerprints.keySet());
+    }
+
+    /**
+     * Reduce a specification to some of its paths. Components which none of these paths reference are dropped,
+     * unless the spec contains references which do not point into the components.
+     * @param spec The specification these fingerprints were computed from.
+     * @param pathKeys Paths to keep.
+     * @return A shallow copy of the spec with the given paths only.
+     */
+    public Map<String, Object> subSpec(Map<String, Object> spec, Collection<String> pathKeys) {
+        Map<String, Object> sub = new LinkedHashMap<>(spec);
+        Map<String, Object> paths = new LinkedHashMap<>();
+        Set<String> keep = new HashSet<>(pathKeys);
+        paths(spec).forEach((k, v) -> {
+            if (keep.contains(k)) paths.put(k, v);
+        });
+        sub.put("paths", paths);
+
+        if (components != null && componentRefsOnly) {
+            Set<String> refs = new HashSet<>();
+            for (String key : keep) refs.addAll(references.getOrDefault(key, Set.of()));
+            Map<String, Object> reduced = new LinkedHashMap<>();
+            components.forEach((type, entries) -> {
+                if (!(entries instanceof Map<?, ?> named)) return;
+                Map<String, Object> kept = new LinkedHashMap<>();
+                named.forEach((name, node) -> {
+                    if (refs.contains(COMPONENTS_PREFIX + type + "/" + escape((String) name))) kept.put((String) name, node);
+                });
+                if (!kept.isEmpty()) reduced.put(type, kept);
+            });
+            sub.put("components", reduced);
+        }
+        return sub;
+    }
+
+    private void add(byte[] shared, String pathKey, Object pathItem) throws JsonProcessingException {
+        // All components reachable from the path, sorted so the fingerprint does not depend on the walk order
+        Set<String> closure = new TreeSet<>();
+        Deque<String> pending = new ArrayDeque<>(refsOf(pathItem));
+        while (!pending.isEmpty()) {
+            String ref = pending.pop();
+            if (closure.add(ref)) pending.addAll(componentRefs(ref));
+        }
+
+        MessageDigest digest = newDigest();
+        digest.update(shared);
+        digest.update(pathKey.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(MAPPER.writeValueAsBytes(pathItem));
+        for (String ref : closure) {
+            digest.update(ref.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(componentDigest(ref));
+        }
+        fingerprints.put(pathKey, HexFormat.of().formatHex(digest.digest()));
+        references.put(pathKey, closure);
+    }
+
+    // Helper: references made by a component itself, empty for references which cannot be resolved
+    private Set<String> componentRefs(String ref) {
+        return componentRefs.computeIfAbsent(ref, r -> {
+            Object node = component(r);
+            return node == null ? Set.of() : refsOf(node);
+        });
+    }
+
+    private byte[] componentDigest(String ref) throws JsonProcessingException {
+        byte[] cached = componentDigests.get(ref);
+        if (cached != null) return cached;
+        Object node = component(ref);
+        byte[] bytes = node == null ? new byte[0] : newDigest().digest(MAPPER.writeValueAsBytes(node));
+        componentDigests.put(ref, bytes);
+        return bytes;
+    }
+
+    // Helper: look up '#/components/{type}/{name}'
+    private Object component(String ref) {
+        if (components == null || !ref.startsWith(COMPONENTS_PREFIX)) return null;
+        String rest = ref.substring(COMPONENTS_PREFIX.length());
+        int slash = rest.indexOf('/');
+        if (slash < 0) return null;
+        Map<String, Object> named = asMap(components.get(rest.substring(0, slash)));
+        return named == null ? null : named.get(unescape(rest.substring(slash + 1)));
+    }
+
+    // Helper: all '$ref' values in a JSON tree
+    private Set<String> refsOf(Object node) {
+        Set<String> refs = new HashSet<>();
+        Deque<Object> pending = new ArrayDeque<>();
+        pending.push(node);
+        while (!pending.isEmpty()) {
+            Object cur = pending.pop();
+            if (cur instanceof Map<?, ?> map) {
+                if (map.get("$ref") instanceof String ref) {
+                    refs.add(ref);
+                    if (!ref.startsWith(COMPONENTS_PREFIX)) componentRefsOnly = false;
+                }
+                for (Object value : map.values()) if (value != null) pending.push(value);
+            } else if (cur instanceof List<?> list) {
+                for (Object value : list) if (value != null) pending.push(value);
+            }
+        }
+        return refs;
+    }
+
+    private static Map<String, Object> paths(Map<String, Object> spec) {
+        Object paths = spec.get("paths");
+        if (paths == null) return Map.of();
+        Map<String, Object> map = asMap(paths);
+        if (map == null) throw new IllegalArgumentException("Paths of the specification must be an object");
+        return map;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object node) {
+        return node instanceof Map<?, ?> ? (Map<String, Object>) node : null;
+    }
+
+    // Helper: JSON pointer escaping of a single segment
+    private static String escape(String segment) {
+        return segment.replace("~", "~0").replace("/", "~1");
+    }
+
+    private static String unescape(String segment) {
+        return segment.replace("~1", "/").replace("~0", "~");
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
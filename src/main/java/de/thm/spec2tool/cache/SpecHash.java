@@ -0,0 +1,67 @@
+package de.thm.spec2tool.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Content addressed keys for specifications. The key is the SHA-256 of the format and the specification.
+ */
+public final class SpecHash {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private SpecHash() {}
+
+    /**
+     * Hash a bound specification. The specification is written as compact JSON straight into the digest, so
+     * formatting of the original document does not matter. Key order is kept, because it defines the tool order.
+     * @param spec The API specification as Map of Strings to Objects.
+     * @param format Format of the specification, e.g. 'openapi'.
+     * @return Hex encoded SHA-256.
+     */
+    public static String of(Map<String, Object> spec, String format) throws JsonProcessingException {
+        MessageDigest digest = newDigest(format);
+        try (OutputStream out = new DigestOutputStream(OutputStream.nullOutputStream(), digest)) {
+            MAPPER.writeValue(out, spec);
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Hash a raw specification document byte by byte.
+     * @param raw The API specification as JSON or YAML document.
+     * @param format Format of the specification, e.g. 'openapi'.
+     * @return Hex encoded SHA-256.
+     */
+    public static String of(String raw, String format) {
+        MessageDigest digest = newDigest(format);
+        digest.update(raw.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest(String format) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(String.valueOf(format).toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            return digest;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
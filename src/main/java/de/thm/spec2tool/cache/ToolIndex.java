@@ -0,0 +1,113 @@
+package de.thm.spec2tool.cache;
+
+import de.thm.spec2tool.dto.ToolDto;
+import de.thm.spec2tool.dto.ToolSetDto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Indexes of the tools of one converted tool set: hash maps for the lookup by name, operationId and
+ * (method, endpoint), and sorted maps of the lowercased names and descriptions for the search by prefix.
+ * The index is built once and never modified, so it is read without locking.
+ */
+public class ToolIndex {
+
+    private final ToolSetDto toolSet;
+    private final Map<String, ToolDto> byName = new HashMap<>();
+    private final Map<String, ToolDto> byOperationId = new HashMap<>();
+    private final Map<String, ToolDto> byEndpoint = new HashMap<>();
+    private final NavigableMap<String, List<ToolDto>> names = new TreeMap<>();
+    private final NavigableMap<String, List<ToolDto>> descriptions = new TreeMap<>();
+
+    /**
+     * @param toolSet Tool set to index.
+     * @param operationIds The operationId of every tool in the order of the tool set, or null if unknown, e.g. for
+     *                     tool sets loaded from the store. Tools are then not found by operationId.
+     */
+    public ToolIndex(ToolSetDto toolSet, List<String> operationIds) {
+        this.toolSet = toolSet;
+        ToolDto[] tools = toolSet.tools() == null ? new ToolDto[0] : toolSet.tools();
+        for (int i = 0; i < tools.length; i++) {
+            ToolDto tool = tools[i];
+            // Names derive from summaries and may repeat, the first tool of a name wins like in the tool set
+            if (tool.name() != null) byName.putIfAbsent(tool.name(), tool);
+            if (operationIds != null && i < operationIds.size() && operationIds.get(i) != null) {
+                byOperationId.putIfAbsent(operationIds.get(i), tool);
+            }
+            byEndpoint.putIfAbsent(endpointKey(tool.requestMethod(), tool.endpoint()), tool);
+            add(names, tool.name(), tool);
+            add(descriptions, tool.description(), tool);
+        }
+    }
+
+    public ToolSetDto toolSet() {
+        return toolSet;
+    }
+
+    public ToolDto byName(String name) {
+        return byName.get(name);
+    }
+
+    public ToolDto byOperationId(String operationId) {
+        return byOperationId.get(operationId);
+    }
+
+    /**
+     * @param method HTTP method, in any case.
+     * @param endpoint Endpoint URL as in the tool.
+     */
+    public ToolDto byEndpoint(String method, String endpoint) {
+        return byEndpoint.get(endpointKey(method, endpoint));
+    }
+
+    /**
+     * Tools whose name or description starts with the prefix, ignoring case. Name matches come first, each in
+     * lexicographic order, and every tool is returned once.
+     * @param prefix Prefix to search for, all tools if empty.
+     * @param limit Maximum number of tools to return.
+     */
+    public List<ToolDto> search(String prefix, int limit) {
+        String key = prefix == null ? "" : prefix.toLowerCase(Locale.ROOT);
+        List<ToolDto> found = new ArrayList<>();
+        // By identity, comparing records would compare their whole input schemas
+        Set<ToolDto> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        collect(names, key, limit, found, seen);
+        collect(descriptions, key, limit, found, seen);
+        return found;
+    }
+
+    public int size() {
+        return toolSet.tools() == null ? 0 : toolSet.tools().length;
+    }
+
+    // Helper: walk the range of keys starting with the prefix until the limit is reached
+    private static void collect(NavigableMap<String, List<ToolDto>> index, String prefix, int limit,
+                                List<ToolDto> found, Set<ToolDto> seen) {
+        NavigableMap<String, List<ToolDto>> range = prefix.isEmpty() ? index
+                : index.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        for (List<ToolDto> tools : range.values()) {
+            for (ToolDto tool : tools) {
+                if (found.size() >= limit) return;
+                if (seen.add(tool)) found.add(tool);
+            }
+        }
+    }
+
+    private static void add(NavigableMap<String, List<ToolDto>> index, String text, ToolDto tool) {
+        if (text == null) return;
+        index.computeIfAbsent(text.toLowerCase(Locale.ROOT), k -> new ArrayList<>(1)).add(tool);
+    }
+
+    private static String endpointKey(String method, String endpoint) {
+        return (method == null ? "" : method.toUpperCase(Locale.ROOT)) + " " + endpoint;
+    }
+}
@@ -0,0 +1,58 @@
+package de.thm.spec2tool.cache;
+
+import de.thm.spec2tool.dto.ToolSetDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Registry of the {@link ToolIndex} of converted tool sets, keyed by the same key as the {@link ConversionCache},
+ * which is the value of the ETag returned with a tool set. Single tools are looked up in it without converting the
+ * spec again.
+ */
+@Component
+public class ToolRegistry {
+
+    private final BoundedCache<String, ToolIndex> indexes;
+
+    Logger logger = LoggerFactory.getLogger(ToolRegistry.class);
+
+    public ToolRegistry(@Value("${spec2tool.registry.max-entries:256}") int maxEntries,
+                        @Value("${spec2tool.registry.ttl:1h}") Duration ttl) {
+        this.indexes = new BoundedCache<>(maxEntries, ttl);
+    }
+
+    /**
+     * Index a tool set and replace its previous index, if any.
+     * @param operationIds The operationId of every tool, or null if unknown.
+     */
+    public ToolIndex register(String key, ToolSetDto toolSet, List<String> operationIds) {
+        ToolIndex index = new ToolIndex(toolSet, operationIds);
+        indexes.put(key, index);
+        logger.debug("Indexed {} tools of tool set {}", index.size(), key);
+        return index;
+    }
+
+    /**
+     * @return The index of the tool set or null, if it was not registered or expired.
+     */
+    public ToolIndex get(String key) {
+        return indexes.get(key);
+    }
+
+    public boolean contains(String key) {
+        return indexes.contains(key);
+    }
+
+    public List<ToolSetDto> toolSets() {
+        return indexes.values().stream().map(ToolIndex::toolSet).toList();
+    }
+
+    public int size() {
+        return indexes.size();
+    }
+}
@@ -0,0 +1,270 @@
+package de.thm.spec2tool.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.thm.spec2tool.dto.ToolSetDto;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Optional file-backed store of converted tool sets, keyed by {@link SpecHash}, which survives restarts.
+ * <p>
+ * Tool sets are appended to a single log file. Each record is {@code length, crc32, payload}, the payload is the
+ * key followed by the deflated JSON of the tool set. On startup the log is scanned to rebuild the in-memory index
+ * of key to offset; a torn or corrupt record ends the scan and the log is truncated there. Tool sets themselves are
+ * only read on demand. When the log would grow beyond its maximum size, it is compacted to the newest records
+ * filling half of it.
+ * <p>
+ * Every append is forced to disk before the tool set is indexed, so a stored tool set survives a crash of the host,
+ * not only of the process. A tool set is stored once per specification, after a full conversion, which costs far
+ * more than the sync.
+ */
+@Component
+public class ToolSetStore {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String LOG_FILE = "toolsets.log";
+    private static final int HEADER_BYTES = 8;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long maxBytes;
+
+    private final Map<String, Entry> index = new ConcurrentHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private FileChannel log;
+    private long size;
+
+    Logger logger = LoggerFactory.getLogger(ToolSetStore.class);
+
+    public ToolSetStore(@Value("${spec2tool.store.enabled:false}") boolean enabled,
+                        @Value("${spec2tool.store.directory:data/toolsets}") Path directory,
+                        @Value("${spec2tool.store.max-size:256MB}") DataSize maxSize) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.maxBytes = maxSize.toBytes();
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        if (!enabled) return;
+        Files.createDirectories(directory);
+        log = FileChannel.open(directory.resolve(LOG_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        size = scan(log, index);
+        if (size < log.size()) {
+            logger.warn("Tool set store {} has a corrupt tail after {} bytes, truncating", directory, size);
+            log.truncate(size);
+        }
+        logger.info("Opened tool set store {} with {} tool sets ({} bytes)", directory, index.size(), size);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (log != null) log.close();
+    }
+
+    /**
+     * @param key Key of the specification.
+     * @return The stored tool set, or null if it is not stored, the store is disabled or the record is corrupt.
+     */
+    public ToolSetDto get(String key) {
+        if (!enabled) return null;
+        lock.readLock().lock();
+        try {
+            Entry entry = index.get(key);
+            if (entry == null) return null;
+            ByteBuffer record = ByteBuffer.allocate(entry.length);
+            readFully(log, record, entry.offset);
+            byte[] json = payload(record.flip(), key);
+            if (json == null) {
+                logger.warn("Corrupt record for {} in tool set store, dropping it", key);
+                index.remove(key, entry);
+                return null;
+            }
+            return MAPPER.readValue(json, ToolSetDto.class);
+        } catch (IOException e) {
+            logger.warn("Cannot read {} from tool set store: {}", key, e.getMessage());
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Append a tool set, unless it is stored already. Failures are logged and do not affect the conversion.
+     */
+    public void put(String key, ToolSetDto toolSet) {
+        if (!enabled || index.containsKey(key)) return;
+        ByteBuffer record;
+        try {
+            record = record(key, toolSet);
+        } catch (IOException e) {
+            logger.warn("Cannot serialize {} for tool set store: {}", key, e.getMessage());
+            return;
+        }
+        if (record.remaining() > maxBytes / 2) {
+            logger.debug("Tool set {} is too large for the store", key);
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (index.containsKey(key)) return;
+            if (size + record.remaining() > maxBytes) compact();
+            int length = record.remaining();
+            long offset = size;
+            while (record.hasRemaining()) log.write(record, offset + record.position());
+            log.force(false);
+            size += length;
+            index.put(key, new Entry(offset, length));
+        } catch (IOException e) {
+            logger.warn("Cannot write {} to tool set store: {}", key, e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return Whether a tool set is stored under the key, without reading or verifying its record.
+     */
+    public boolean contains(String key) {
+        return enabled && index.containsKey(key);
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public long bytes() {
+        return size;
+    }
+
+    // Helper: rewrite the newest records filling half of the maximum size into a new log, then replace the old one
+    private void compact() throws IOException {
+        List<Map.Entry<String, Entry>> newestFirst = new ArrayList<>(index.entrySet());
+        newestFirst.sort(Comparator.comparingLong((Map.Entry<String, Entry> e) -> e.getValue().offset).reversed());
+
+        long budget = maxBytes / 2;
+        List<Map.Entry<String, Entry>> kept = new ArrayList<>();
+        for (Map.Entry<String, Entry> e : newestFirst) {
+            if (budget < e.getValue().length) break;
+            budget -= e.getValue().length;
+            kept.add(e);
+        }
+        Collections.reverse(kept);
+
+        Path tmp = directory.resolve(LOG_FILE + ".tmp");
+        Map<String, Entry> compacted = new HashMap<>();
+        long offset = 0;
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Map.Entry<String, Entry> e : kept) {
+                ByteBuffer record = ByteBuffer.allocate(e.getValue().length);
+                readFully(log, record, e.getValue().offset);
+                record.flip();
+                while (record.hasRemaining()) out.write(record);
+                compacted.put(e.getKey(), new Entry(offset, e.getValue().length));
+                offset += e.getValue().length;
+            }
+            out.force(true);
+        }
+        log.close();
+        Files.move(tmp, directory.resolve(LOG_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        logger.info("Compacted tool set store from {} to {} tool sets ({} bytes)", index.size(), compacted.size(), offset);
+        index.clear();
+        index.putAll(compacted);
+        size = offset;
+    }
+
+    // Helper: read all valid records into the index, returns the end of the last valid record
+    private static long scan(FileChannel channel, Map<String, Entry> index) throws IOException {
+        long offset = 0;
+        long end = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (offset + HEADER_BYTES <= end) {
+            readFully(channel, header.clear(), offset);
+            int length = header.getInt(0);
+            if (length <= HEADER_BYTES || offset + length > end) break;
+            ByteBuffer record = ByteBuffer.allocate(length);
+            readFully(channel, record, offset);
+            String key = key(record.flip());
+            if (key == null || payload(record.rewind(), key) == null) break;
+            index.put(key, new Entry(offset, length));
+            offset += length;
+        }
+        return offset;
+    }
+
+    // Helper: record layout is int length (including header), int crc32 (of the rest), byte keyLength, key, deflated JSON
+    private static ByteBuffer record(String key, ToolSetDto toolSet) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.US_ASCII);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(new byte[HEADER_BYTES]);
+        bytes.write(keyBytes.length);
+        bytes.write(keyBytes);
+        try (OutputStream out = new DeflaterOutputStream(bytes)) {
+            MAPPER.writeValue(out, toolSet);
+        }
+        ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), HEADER_BYTES, record.capacity() - HEADER_BYTES);
+        record.putInt(0, record.capacity());
+        record.putInt(4, (int) crc.getValue());
+        return record;
+    }
+
+    private static String key(ByteBuffer record) {
+        if (record.remaining() <= HEADER_BYTES) return null;
+        int keyLength = Byte.toUnsignedInt(record.get(HEADER_BYTES));
+        if (HEADER_BYTES + 1 + keyLength > record.remaining()) return null;
+        return new String(record.array(), HEADER_BYTES + 1, keyLength, StandardCharsets.US_ASCII);
+    }
+
+    // Helper: the inflated JSON of a record, or null if the checksum or the key does not match
+    private static byte[] payload(ByteBuffer record, String key) throws IOException {
+        byte[] bytes = record.array();
+        if (record.getInt(0) != bytes.length) return null;
+        CRC32 crc = new CRC32();
+        crc.update(bytes, HEADER_BYTES, bytes.length - HEADER_BYTES);
+        if ((int) crc.getValue() != record.getInt(4) || !key.equals(key(record))) return null;
+        int start = HEADER_BYTES + 1 + Byte.toUnsignedInt(bytes[HEADER_BYTES]);
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(bytes, start, bytes.length - start))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) throw new IOException("Unexpected end of store");
+        }
+    }
+
+    private record Entry(long offset, int length) {}
+}
@@ -0,0 +1,35 @@
+package de.thm.spec2tool.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread pools used for conversions outside the request threads.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService batchExecutor(@Value("${spec2tool.batch.threads:4}") int threads) {
+        return Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("batch-"));
+    }
+
+    /**
+     * Pool for asynchronous conversion jobs. The queue is bounded, a full queue rejects new jobs.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor jobExecutor(@Value("${spec2tool.jobs.threads:2}") int threads,
+                                          @Value("${spec2tool.jobs.queue-depth:50}") int queueDepth) {
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueDepth)), new CustomizableThreadFactory("job-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+}
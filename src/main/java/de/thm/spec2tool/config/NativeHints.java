@@ -0,0 +1,68 @@
+package de.thm.spec2tool.config;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.util.ClassUtils;
+
+import java.util.List;
+
+/**
+ * Reflection and resource hints for a native image, which Spring cannot infer from the beans. They are recorded by the AOT
+ * processing of the 'aot' and 'native' profiles and have no effect on the JVM.
+ * <ul>
+ *     <li>swagger-parser binds specifications to the OpenAPI models with Jackson, including its mix-ins.</li>
+ *     <li>The DTO records are (de)serialized by Jackson, also outside of controllers, e.g. by the tool set store.</li>
+ *     <li>The warm-up reads its example spec from the class path.</li>
+ * </ul>
+ */
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(NativeHints.class)
+public class NativeHints implements RuntimeHintsRegistrar {
+
+    // Packages whose classes Jackson instantiates and introspects for swagger-parser
+    private static final List<String> SWAGGER_PACKAGES = List.of(
+            "io.swagger.v3.oas.models",
+            "io.swagger.v3.core.jackson.mixin");
+
+    private static final String DTO_PACKAGE = "de.thm.spec2tool.dto";
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (String swaggerPackage : SWAGGER_PACKAGES) {
+            for (String className : classes(swaggerPackage, classLoader)) {
+                hints.reflection().registerType(TypeReference.of(className), MemberCategory.values());
+            }
+        }
+
+        BindingReflectionHintsRegistrar bindings = new BindingReflectionHintsRegistrar();
+        for (String className : classes(DTO_PACKAGE, classLoader)) {
+            bindings.registerReflectionHints(hints.reflection(), ClassUtils.resolveClassName(className, classLoader));
+        }
+
+        hints.resources().registerPattern("warmup/*.json");
+    }
+
+    // Helper: every class of a package and its subpackages, nested and abstract classes included
+    private static List<String> classes(String basePackage, ClassLoader classLoader) {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false) {
+            @Override
+            protected boolean isCandidateComponent(AnnotatedBeanDefinition beanDefinition) {
+                return true;
+            }
+        };
+        scanner.setResourceLoader(new DefaultResourceLoader(classLoader));
+        scanner.addIncludeFilter((reader, readerFactory) -> true);
+        return scanner.findCandidateComponents(basePackage).stream()
+                .map(BeanDefinition::getBeanClassName)
+                .toList();
+    }
+}
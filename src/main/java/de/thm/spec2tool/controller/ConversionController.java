@@ -1,7 +1,14 @@
 package de.thm.spec2tool.controller;
 
+import de.thm.spec2tool.dto.BatchResultDto;
+import de.thm.spec2tool.dto.JobDto;
+import de.thm.spec2tool.dto.ToolDto;
+import de.thm.spec2tool.dto.ToolSetDeltaDto;
 import de.thm.spec2tool.dto.ToolSetDto;
 import de.thm.spec2tool.dto.ToolSpecificationDto;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -9,12 +16,16 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
 @Tag(name = "Spec2Tool", description = "All Endpoints related to convert specifications to gromokoso tool definition.")
 public interface ConversionController {
 
+    String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully returned all supported specifications",
                     content = { @Content(mediaType = "application/json",
@@ -28,12 +39,139 @@ public interface ConversionController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Added new User",
                     content = { @Content(mediaType = "application/json",
-                            schema = @Schema(implementation = ToolSetDto.class)) }),
+                            schema = @Schema(implementation = ToolSetDto.class)),
+                            @Content(mediaType = ConversionController.APPLICATION_SMILE_VALUE,
+                                    schema = @Schema(implementation = ToolSetDto.class)),
+                            @Content(mediaType = MediaType.APPLICATION_CBOR_VALUE,
+                                    schema = @Schema(implementation = ToolSetDto.class)) }),
+            @ApiResponse(responseCode = "304", description = "Tool set matches the ETag in 'If-None-Match', or '*' and it was converted before",
+                    content = @Content),
             @ApiResponse(responseCode = "401", description = "Not authorized to perform this request.",
                     content = @Content),
             @ApiResponse(responseCode = "422", description = "Invalid Data in Payload",
                     content = @Content)}
     )
     @PostMapping("/convert")
-    ToolSetDto convertSpecToTool(@RequestBody ToolSpecificationDto specification);
+    ResponseEntity<ToolSetDto> convertSpecToTool(@RequestBody ToolSpecificationDto specification,
+                                                 @RequestParam(defaultValue = "false") boolean profile,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                 String ifNoneMatch);
+
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Streamed the tool set header followed by one tool per line. "
+                    + "If the conversion fails after the first line, the stream ends with an {\"error\": \"...\"} line",
+                    content = { @Content(mediaType = "application/x-ndjson",
+                            schema = @Schema(implementation = ToolDto.class)) }),
+            @ApiResponse(responseCode = "401", description = "Not authorized to perform this request.",
+                    content = @Content),
+            @ApiResponse(responseCode = "422", description = "Invalid Data in Payload",
+                    content = @Content)}
+    )
+    @PostMapping(value = "/convert", produces = ConversionController.APPLICATION_NDJSON_VALUE)
+    ResponseEntity<StreamingResponseBody> streamSpecToTool(@RequestBody ToolSpecificationDto specification);
+
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Converted the batch, with a tool set or an error per specification",
+                    content = { @Content(mediaType = "application/json",
+                            array = @ArraySchema( schema = @Schema(implementation = BatchResultDto.class)))}),
+            @ApiResponse(responseCode = "401", description = "Not authorized to perform this request.",
+                    content = @Content),
+            @ApiResponse(responseCode = "413", description = "Too many specifications in one batch",
+                    content = @Content)}
+    )
+    @PostMapping("/convert/batch")
+    List<BatchResultDto> convertBatch(@RequestBody List<ToolSpecificationDto> specifications);
+
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Queued the conversion job",
+                    content = { @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = JobDto.class)) }),
+            @ApiResponse(responseCode = "401", description = "Not authorized to perform this request.",
+                    content = @Content),
+            @ApiResponse(responseCode = "429", description = "Job queue is full, retry after the time in 'Retry-After'",
+                    content = @Content)}
+    )
+    @PostMapping("/convert/jobs")
+    ResponseEntity<JobDto> submitConversionJob(@RequestBody ToolSpecificationDto specification);
+
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Returned the status or the result of the job",
+                    content = { @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = JobDto.class)) }),
+            @ApiResponse(responseCode = "401", description = "Not authorized to perform this request.",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Unknown or expired job",
+                    content = @Content)}
+    )
+    @GetMapping("/convert/jobs/{id}")
+    JobDto getConversionJob(@PathVariable String id);
+
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Converted the changed paths and returned the added, changed and removed tools",
+                    content = { @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ToolSetDeltaDto.class)) }),
+            @ApiResponse(responseCode = "401", description = "Not authorized to perform this request.",
+                    content = @Content),
+            @ApiResponse(responseCode = "422", description = "Invalid Data in Payload",
+                    content = @Content)}
+    )
+    @PostMapping("/convert/delta")
+    ToolSetDeltaDto convertSpecDelta(@RequestBody ToolSpecificationDto specification,
+                                     @RequestParam(required = false) String previous,
+                                     @RequestParam(defaultValue = "false") boolean full);
+
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Converted the raw JSON or YAML specification",
+                    content = { @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ToolSetDto.class)),
+                            @Content(mediaType = ConversionController.APPLICATION_SMILE_VALUE,
+                                    schema = @Schema(implementation = ToolSetDto.class)),
+                            @Content(mediaType = MediaType.APPLICATION_CBOR_VALUE,
+                                    schema = @Schema(implementation = ToolSetDto.class)) }),
+            @ApiResponse(responseCode = "304", description = "Tool set matches the ETag in 'If-None-Match', or '*' and it was converted before",
+                    content = @Content),
+            @ApiResponse(responseCode = "401", description = "Not authorized to perform this request.",
+                    content = @Content),
+            @ApiResponse(responseCode = "422", description = "Invalid Data in Payload",
+                    content = @Content)}
+    )
+    @PostMapping(value = "/convert/raw", consumes = {
+            MediaType.APPLICATION_JSON_VALUE, "application/yaml", "application/x-yaml", "text/yaml",
+            MediaType.TEXT_PLAIN_VALUE })
+    ResponseEntity<ToolSetDto> convertRawSpecToTool(@RequestBody byte[] spec,
+                                                    @RequestParam(defaultValue = "openapi") String format,
+                                                    @RequestParam(defaultValue = "false") boolean profile,
+                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                    String ifNoneMatch);
+
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Returned the tool with this name",
+                    content = { @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ToolDto.class)) }),
+            @ApiResponse(responseCode = "401", description = "Not authorized to perform this request.",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Unknown or expired tool set, or unknown tool",
+                    content = @Content)}
+    )
+    @GetMapping("/toolsets/{id}/tools/{name}")
+    ToolDto getTool(@PathVariable String id, @PathVariable String name);
+
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Returned the tool with the operationId or the method and endpoint, or the tools whose name or description starts with the prefix",
+                    content = { @Content(mediaType = "application/json",
+                            array = @ArraySchema( schema = @Schema(implementation = ToolDto.class)))}),
+            @ApiResponse(responseCode = "400", description = "Only one of 'method' and 'endpoint' was given",
+                    content = @Content),
+            @ApiResponse(responseCode = "401", description = "Not authorized to perform this request.",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Unknown or expired tool set",
+                    content = @Content)}
+    )
+    @GetMapping("/toolsets/{id}/tools")
+    List<ToolDto> findTools(@PathVariable String id,
+                            @RequestParam(required = false) String operationId,
+                            @RequestParam(required = false) String method,
+                            @RequestParam(required = false) String endpoint,
+                            @RequestParam(required = false) String prefix,
+                            @RequestParam(defaultValue = "20") int limit);
 }
@@ -1,28 +1,73 @@
 package de.thm.spec2tool.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.thm.spec2tool.cache.ToolIndex;
+import de.thm.spec2tool.dto.BatchResultDto;
+import de.thm.spec2tool.dto.JobDto;
+import de.thm.spec2tool.dto.ToolDto;
+import de.thm.spec2tool.dto.ToolSetDeltaDto;
 import de.thm.spec2tool.dto.ToolSetDto;
 import de.thm.spec2tool.exception.ConversionException;
 import de.thm.spec2tool.exception.InvalidTokenException;
+import de.thm.spec2tool.exception.ToolNotFoundException;
+import de.thm.spec2tool.metrics.ConversionProfile;
 import de.thm.spec2tool.security.TokenProvider;
+import de.thm.spec2tool.security.UserQuotas;
 import de.thm.spec2tool.dto.ToolSpecificationDto;
+import de.thm.spec2tool.service.ConversionJobService;
+import de.thm.spec2tool.service.ConversionJobServiceImpl;
 import de.thm.spec2tool.service.ConversionService;
 import de.thm.spec2tool.service.ConversionServiceImpl;
+import de.thm.spec2tool.service.DeltaConversionService;
+import de.thm.spec2tool.service.DeltaConversionServiceImpl;
+import jakarta.servlet.http.HttpServletRequest;
 import org.apache.commons.lang3.NotImplementedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 @RestController
 public class ConversionControllerImpl implements ConversionController {
 
     private final TokenProvider tokenProvider;
     private final ConversionService conversionService;
+    private final ConversionJobService conversionJobService;
+    private final DeltaConversionService deltaConversionService;
+    private final ObjectMapper objectMapper;
+    private final UserQuotas userQuotas;
 
-    public ConversionControllerImpl(TokenProvider tokenProvider, ConversionServiceImpl conversionService) {
+    Logger logger = LoggerFactory.getLogger(ConversionControllerImpl.class);
+
+    public ConversionControllerImpl(TokenProvider tokenProvider, ConversionServiceImpl conversionService,
+                                    ConversionJobServiceImpl conversionJobService,
+                                    DeltaConversionServiceImpl deltaConversionService, ObjectMapper objectMapper,
+                                    UserQuotas userQuotas) {
         this.tokenProvider = tokenProvider;
+        this.userQuotas = userQuotas;
         this.conversionService = conversionService;
+        this.conversionJobService = conversionJobService;
+        this.deltaConversionService = deltaConversionService;
+        this.objectMapper = objectMapper;
     }
 
     @Override
@@ -36,14 +81,194 @@ public class ConversionControllerImpl implements ConversionController {
     }
 
     @Override
-    public ToolSetDto convertSpecToTool(ToolSpecificationDto specification) {
+    public ResponseEntity<ToolSetDto> convertSpecToTool(ToolSpecificationDto specification, boolean profile,
+                                                        String ifNoneMatch) {
+        try (UserQuotas.Permit permit = permit(1)) {
+            ConversionProfile conversionProfile = new ConversionProfile();
+            String etag = conversionService.etag(specification.spec(), specification.format(), specification.filter(),
+                    conversionProfile);
+            if (matches(ifNoneMatch, etag)) return notModified(etag);
+            ToolSetDto toolSet = conversionService.convert(specification.spec(), specification.format(),
+                    specification.filter(), conversionProfile);
+            return withServerTiming(toolSet, etag, profile ? conversionProfile : null);
+        } catch (OAuth2AuthenticationException oaae) {
+            throw new InvalidTokenException("The authentication token is invalid!");
+        } catch (JsonProcessingException | IllegalArgumentException | NotImplementedException e) {
+            throw new ConversionException("Cannot convert specification to tool!");
+        }
+    }
+
+    @Override
+    public ResponseEntity<StreamingResponseBody> streamSpecToTool(ToolSpecificationDto specification) {
+        UserQuotas.Permit permit;
+        try {
+            permit = permit(1);
+        } catch (OAuth2AuthenticationException oaae) {
+            throw new InvalidTokenException("The authentication token is invalid!");
+        }
+
+        // Released when the async request completes, also if the body never runs, e.g. after the client left
+        WebAsyncUtils.getAsyncManager(currentRequest()).registerCallableInterceptor(permit,
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+                        permit.close();
+                    }
+                });
+
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+                NdjsonToolSink sink = new NdjsonToolSink(generator);
+                try {
+                    conversionService.convert(specification.spec(), specification.format(), specification.filter(),
+                            sink);
+                } catch (JsonProcessingException | IllegalArgumentException | NotImplementedException e) {
+                    if (!sink.isStarted()) throw new ConversionException("Cannot convert specification to tool!");
+                    sink.error("Cannot convert specification to tool!");
+                } catch (UncheckedIOException e) {
+                    throw e;
+                } catch (RuntimeException e) {
+                    // Before the first line, the status still reports the failure
+                    if (!sink.isStarted()) throw e;
+                    logger.warn("Streamed conversion failed after the first line: {}", e.getMessage());
+                    sink.error(e instanceof ResponseStatusException rse && rse.getReason() != null ? rse.getReason()
+                            : "Cannot convert specification to tool!");
+                }
+            } finally {
+                // The conversion runs while the response is written, so the permit is held until then at most
+                permit.close();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE)).body(body);
+    }
+
+    @Override
+    public List<BatchResultDto> convertBatch(List<ToolSpecificationDto> specifications) {
+        try (UserQuotas.Permit permit = permit(specifications.size())) {
+            return conversionService.convertAll(specifications);
+        } catch (OAuth2AuthenticationException oaae) {
+            throw new InvalidTokenException("The authentication token is invalid!");
+        }
+    }
+
+    @Override
+    public ResponseEntity<JobDto> submitConversionJob(ToolSpecificationDto specification) {
+        try {
+            // Held by the job until it finished, so queued jobs count against the quota as well
+            UserQuotas.Permit permit = permit(1);
+            JobDto job = conversionJobService.submit(specification, permit::close);
+            return ResponseEntity.accepted().location(URI.create("/convert/jobs/" + job.id())).body(job);
+        } catch (OAuth2AuthenticationException oaae) {
+            throw new InvalidTokenException("The authentication token is invalid!");
+        }
+    }
+
+    @Override
+    public JobDto getConversionJob(String id) {
         try {
             tokenProvider.getToken();
-            return conversionService.convert(specification.spec(), specification.format());
+            return conversionJobService.get(id);
+        } catch (OAuth2AuthenticationException oaae) {
+            throw new InvalidTokenException("The authentication token is invalid!");
+        }
+    }
+
+    @Override
+    public ToolSetDeltaDto convertSpecDelta(ToolSpecificationDto specification, String previous, boolean full) {
+        try (UserQuotas.Permit permit = permit(1)) {
+            return deltaConversionService.convert(specification.spec(), specification.format(), previous, full,
+                    new ConversionProfile());
         } catch (OAuth2AuthenticationException oaae) {
             throw new InvalidTokenException("The authentication token is invalid!");
         } catch (JsonProcessingException | IllegalArgumentException | NotImplementedException e) {
             throw new ConversionException("Cannot convert specification to tool!");
         }
     }
+
+    @Override
+    public ResponseEntity<ToolSetDto> convertRawSpecToTool(byte[] spec, String format, boolean profile,
+                                                           String ifNoneMatch) {
+        try (UserQuotas.Permit permit = permit(1)) {
+            ConversionProfile conversionProfile = new ConversionProfile();
+            String rawSpec = new String(spec, StandardCharsets.UTF_8);
+            String etag = conversionService.etag(rawSpec, format, conversionProfile);
+            if (matches(ifNoneMatch, etag)) return notModified(etag);
+            ToolSetDto toolSet = conversionService.convert(rawSpec, format, conversionProfile);
+            return withServerTiming(toolSet, etag, profile ? conversionProfile : null);
+        } catch (OAuth2AuthenticationException oaae) {
+            throw new InvalidTokenException("The authentication token is invalid!");
+        } catch (IllegalArgumentException | NotImplementedException e) {
+            throw new ConversionException("Cannot convert specification to tool!");
+        }
+    }
+
+    @Override
+    public ToolDto getTool(String id, String name) {
+        try {
+            tokenProvider.getToken();
+            ToolDto tool = conversionService.toolIndex(id).byName(name);
+            if (tool == null) throw new ToolNotFoundException("No tool " + name + " in tool set " + id);
+            return tool;
+        } catch (OAuth2AuthenticationException oaae) {
+            throw new InvalidTokenException("The authentication token is invalid!");
+        }
+    }
+
+    @Override
+    public List<ToolDto> findTools(String id, String operationId, String method, String endpoint, String prefix,
+                                   int limit) {
+        try {
+            tokenProvider.getToken();
+            ToolIndex index = conversionService.toolIndex(id);
+            // Exact lookups return at most one tool, the search is bounded by the limit
+            if (operationId != null) return single(index.byOperationId(operationId));
+            if (method != null || endpoint != null) {
+                if (method == null || endpoint == null) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "Both 'method' and 'endpoint' are required to look up a tool by endpoint");
+                }
+                return single(index.byEndpoint(method, endpoint));
+            }
+            return index.search(prefix, Math.max(0, limit));
+        } catch (OAuth2AuthenticationException oaae) {
+            throw new InvalidTokenException("The authentication token is invalid!");
+        }
+    }
+
+    private static List<ToolDto> single(ToolDto tool) {
+        return tool == null ? List.of() : List.of(tool);
+    }
+
+    private static HttpServletRequest currentRequest() {
+        return ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
+    }
+
+    // Helper: check the token and take a permit from the quota of its user
+    private UserQuotas.Permit permit(int conversions) throws OAuth2AuthenticationException {
+        return userQuotas.acquire(tokenProvider.getUsernameFromToken(), conversions);
+    }
+
+    // Helper: attach the ETag, and the stage timings as 'Server-Timing' header if profiling was requested
+    private static ResponseEntity<ToolSetDto> withServerTiming(ToolSetDto toolSet, String etag, ConversionProfile profile) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT);
+        if (profile != null) response.header("Server-Timing", profile.toServerTiming());
+        return response.body(toolSet);
+    }
+
+    private static ResponseEntity<ToolSetDto> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+    }
+
+    // Helper: weak comparison of the ETag with every entity tag listed in 'If-None-Match'. '*' only matches if the
+    // tool set was converted before, a spec nobody converted yet has no current representation
+    private boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.equals("*") ? conversionService.isConverted(etag)
+                    : (tag.startsWith("W/") ? tag.substring(2) : tag).equals(opaque)) return true;
+        }
+        return false;
+    }
 }
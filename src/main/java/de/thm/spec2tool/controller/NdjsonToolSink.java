@@ -0,0 +1,63 @@
+package de.thm.spec2tool.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import de.thm.spec2tool.dto.ToolDto;
+import de.thm.spec2tool.dto.ToolSetHeaderDto;
+import de.thm.spec2tool.mapper.ToolSink;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes a tool set as newline delimited JSON: the header line first, then one line per tool.
+ * Every line is flushed right away, so the client receives each tool as soon as it is converted.
+ * If the conversion fails once lines were sent, the status cannot change anymore, so the stream ends with an
+ * {@code {"error": ...}} line instead.
+ */
+class NdjsonToolSink implements ToolSink {
+
+    private final JsonGenerator generator;
+    private boolean started;
+
+    NdjsonToolSink(JsonGenerator generator) {
+        this.generator = generator;
+        this.generator.setRootValueSeparator(null);
+    }
+
+    @Override
+    public void header(String name, String description) {
+        write(new ToolSetHeaderDto(name, description));
+    }
+
+    @Override
+    public void tool(ToolDto tool) {
+        write(tool);
+    }
+
+    /**
+     * Terminate the stream with an error line.
+     */
+    void error(String message) {
+        write(new ErrorLine(message));
+    }
+
+    /**
+     * @return Whether a line was written, i.e. the response is committed.
+     */
+    boolean isStarted() {
+        return started;
+    }
+
+    private void write(Object value) {
+        started = true;
+        try {
+            generator.writeObject(value);
+            generator.writeRaw('\n');
+            generator.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record ErrorLine(String error) {}
+}
@@ -0,0 +1,118 @@
+package de.thm.spec2tool.controller;
+
+import de.thm.spec2tool.exception.PayloadTooLargeException;
+import de.thm.spec2tool.mapper.ConversionLimits;
+import de.thm.spec2tool.metrics.ConversionMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Rejects request bodies to the conversion endpoints which are larger than {@code spec2tool.limits.max-body-size}
+ * with 413. A declared 'Content-Length' is rejected before the body is read; a chunked body is counted while it is
+ * read and fails as soon as it exceeds the limit, so it is never held in memory as a whole.
+ */
+@Component
+public class RequestSizeLimitFilter extends OncePerRequestFilter {
+
+    private final long maxBodySize;
+    private final ConversionMetrics conversionMetrics;
+
+    Logger logger = LoggerFactory.getLogger(RequestSizeLimitFilter.class);
+
+    public RequestSizeLimitFilter(ConversionLimits conversionLimits, ConversionMetrics conversionMetrics) {
+        this.maxBodySize = conversionLimits.maxBodySize();
+        this.conversionMetrics = conversionMetrics;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return maxBodySize <= 0 || !"POST".equals(request.getMethod()) || !request.getRequestURI().startsWith("/convert");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (request.getContentLengthLong() > maxBodySize) {
+            logger.warn("Rejected request body of {} bytes to {}", request.getContentLengthLong(), request.getRequestURI());
+            conversionMetrics.recordLimitExceeded(ConversionLimits.BODY_SIZE);
+            response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value(), message());
+            return;
+        }
+        filterChain.doFilter(request.getContentLengthLong() < 0 ? new LimitedRequest(request) : request, response);
+    }
+
+    private String message() {
+        return "Request body is larger than " + maxBodySize + " bytes";
+    }
+
+    private final class LimitedRequest extends HttpServletRequestWrapper {
+
+        private ServletInputStream inputStream;
+
+        private LimitedRequest(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                ServletInputStream delegate = super.getInputStream();
+                inputStream = new ServletInputStream() {
+                    private long count;
+
+                    @Override
+                    public int read() throws IOException {
+                        int b = delegate.read();
+                        if (b >= 0) count(1);
+                        return b;
+                    }
+
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException {
+                        int n = delegate.read(b, off, len);
+                        if (n > 0) count(n);
+                        return n;
+                    }
+
+                    // Helper: unchecked, so it is not turned into a 400 by the message converters
+                    private void count(int n) {
+                        count += n;
+                        if (count > maxBodySize) {
+                            logger.warn("Rejected chunked request body to {}", getRequestURI());
+                            conversionMetrics.recordLimitExceeded(ConversionLimits.BODY_SIZE);
+                            throw new PayloadTooLargeException(message());
+                        }
+                    }
+
+                    @Override
+                    public boolean isFinished() {
+                        return delegate.isFinished();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return delegate.isReady();
+                    }
+
+                    @Override
+                    public void setReadListener(ReadListener readListener) {
+                        delegate.setReadListener(readListener);
+                    }
+                };
+            }
+            return inputStream;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package de.thm.spec2tool.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchResultDto(
+        @Schema(description = "Position of the specification in the batch")
+        int index,
+        @Schema(description = "Converted tool set, if the conversion succeeded")
+        ToolSetDto toolSet,
+        @Schema(description = "Reason why the conversion failed")
+        String error) {
+}
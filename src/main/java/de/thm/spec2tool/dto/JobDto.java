@@ -0,0 +1,16 @@
+package de.thm.spec2tool.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record JobDto(
+        @Schema(description = "Identifier of the conversion job")
+        String id,
+        @Schema(description = "Current state of the job")
+        JobStatus status,
+        @Schema(description = "Converted tool set, once the job succeeded")
+        ToolSetDto result,
+        @Schema(description = "Reason why the job failed")
+        String error) {
+}
@@ -0,0 +1,8 @@
+package de.thm.spec2tool.dto;
+
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED
+}
@@ -0,0 +1,28 @@
+package de.thm.spec2tool.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public record MemoryReportDto(
+        @Schema(description = "Distinct tool sets held in the cache and the tool registry")
+        int toolSets,
+        @Schema(description = "Tools of these tool sets")
+        long tools,
+        @Schema(description = "Distinct schema nodes and strings of their input schemas")
+        long schemaNodes,
+        @Schema(description = "Estimated bytes of the input schemas if every tool held its own copy")
+        long logicalBytes,
+        @Schema(description = "Estimated bytes of the input schemas as held, with shared subtrees counted once")
+        long residentBytes,
+        @Schema(description = "Estimated bytes saved by sharing subtrees and strings, logicalBytes - residentBytes")
+        long savedBytes,
+        @Schema(description = "Whether subtrees are shared across tool sets")
+        boolean sharedPool,
+        @Schema(description = "Distinct nodes and strings in the shared pool")
+        int poolEntries,
+        @Schema(description = "Estimated bytes of the nodes and strings replaced by a pooled one since the start")
+        long poolSavedBytes,
+        @Schema(description = "Used heap of the JVM")
+        long heapUsedBytes,
+        @Schema(description = "Maximum heap of the JVM")
+        long heapMaxBytes) {
+}
@@ -0,0 +1,12 @@
+package de.thm.spec2tool.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ToolFilterDto(
+        @Schema(description = "Operations to convert, all if missing")
+        ToolSelectorDto include,
+        @Schema(description = "Operations to leave out, even if they are included")
+        ToolSelectorDto exclude) {
+}
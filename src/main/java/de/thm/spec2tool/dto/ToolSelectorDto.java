@@ -0,0 +1,22 @@
+package de.thm.spec2tool.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Selects operations of a specification. An operation is selected if it matches every given criterion,
+ * and a criterion if it matches one of its values.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ToolSelectorDto(
+        @Schema(description = "Tags of the operation, e.g. 'pets'")
+        List<String> tags,
+        @Schema(description = "Ant-style patterns of the path, e.g. '/pets/**'")
+        List<String> paths,
+        @Schema(description = "HTTP methods, e.g. 'GET'")
+        List<String> methods,
+        @Schema(description = "Operation ids, e.g. 'listPets'")
+        List<String> operationIds) {
+}
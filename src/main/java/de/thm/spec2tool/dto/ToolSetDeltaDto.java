@@ -0,0 +1,27 @@
+package de.thm.spec2tool.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ToolSetDeltaDto(
+        @Schema(description = "Fingerprint of this specification version, pass it as 'previous' with the next version")
+        String fingerprint,
+        @Schema(description = "Fingerprint the delta is relative to. Missing if the previous version is unknown, "
+                + "then all tools are reported as added")
+        String previous,
+        @Schema(description = "Unique identifier for the tool set")
+        String name,
+        @Schema(description = "Human-readable description of the tool set")
+        String description,
+        @Schema(description = "Tools of new operations")
+        List<ToolDto> added,
+        @Schema(description = "New versions of tools whose operation changed")
+        List<ToolDto> changed,
+        @Schema(description = "Previous versions of tools whose operation was removed")
+        List<ToolDto> removed,
+        @Schema(description = "Complete tool set of this version, only if requested with 'full=true'")
+        ToolSetDto toolSet) {
+}
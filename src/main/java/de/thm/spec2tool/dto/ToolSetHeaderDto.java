@@ -0,0 +1,10 @@
+package de.thm.spec2tool.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public record ToolSetHeaderDto(
+        @Schema(description = "Unique identifier for the tool set")
+        String name,
+        @Schema(description = "Human-readable description of the tool set")
+        String description) {
+}
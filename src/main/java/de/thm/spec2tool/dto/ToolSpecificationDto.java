@@ -1,5 +1,18 @@
 package de.thm.spec2tool.dto;
 
+import io.swagger.v3.oas.annotations.media.Schema;
+
 import java.util.Map;
 
-public record ToolSpecificationDto(String format, Map<String, Object> spec) {}
+public record ToolSpecificationDto(
+        @Schema(description = "Format of the specification, e.g. 'openapi'")
+        String format,
+        @Schema(description = "The API specification")
+        Map<String, Object> spec,
+        @Schema(description = "Operations to convert, all if missing")
+        ToolFilterDto filter) {
+
+    public ToolSpecificationDto(String format, Map<String, Object> spec) {
+        this(format, spec, null);
+    }
+}
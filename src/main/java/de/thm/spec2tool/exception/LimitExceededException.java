@@ -0,0 +1,24 @@
+package de.thm.spec2tool.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Rejects a specification with 422, because its conversion exceeds one of the conversion limits.
+ */
+public class LimitExceededException extends ResponseStatusException {
+
+    private final String limit;
+
+    /**
+     * @param limit Name of the exceeded limit, e.g. 'operations'.
+     */
+    public LimitExceededException(String limit, String message) {
+        super(HttpStatus.UNPROCESSABLE_ENTITY, message);
+        this.limit = limit;
+    }
+
+    public String getLimit() {
+        return limit;
+    }
+}
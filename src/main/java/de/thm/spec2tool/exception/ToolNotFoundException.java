@@ -0,0 +1,11 @@
+package de.thm.spec2tool.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.NOT_FOUND, reason = "Tool not found")
+public class ToolNotFoundException extends RuntimeException {
+    public ToolNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,133 @@
+package de.thm.spec2tool.mapper;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import de.thm.spec2tool.exception.LimitExceededException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits of a single conversion, so a pathological spec cannot occupy the shared threads or the heap.
+ * The mapper checks them cooperatively while it converts and fails with a {@link LimitExceededException}; the size
+ * of request bodies is checked before they are read. A limit of 0 disables it.
+ */
+@Component
+public class ConversionLimits {
+
+    public static final String BODY_SIZE = "body-size";
+    public static final String NESTING_DEPTH = "nesting-depth";
+    public static final String OPERATIONS = "operations";
+    public static final String REF_STEPS = "ref-steps";
+    public static final String TIME = "time";
+
+    /** No limits at all, e.g. for benchmarks. */
+    public static final ConversionLimits NONE = new ConversionLimits(DataSize.ofBytes(0), 0, 0, 0, Duration.ZERO);
+
+    private final long maxBodySize;
+    private final int maxNestingDepth;
+    private final int maxOperations;
+    private final long maxRefSteps;
+    private final long timeoutNanos;
+
+    /**
+     * @param maxBodySize Size of a request body to a conversion endpoint.
+     * @param maxNestingDepth Nesting depth of objects and arrays in a JSON document.
+     * @param maxOperations Operations converted from one spec, after the filter is applied.
+     * @param maxRefSteps References followed while schemas are inlined.
+     * @param timeout Wall-clock time of a conversion, parsing included.
+     */
+    public ConversionLimits(@Value("${spec2tool.limits.max-body-size:16MB}") DataSize maxBodySize,
+                            @Value("${spec2tool.limits.max-nesting-depth:128}") int maxNestingDepth,
+                            @Value("${spec2tool.limits.max-operations:5000}") int maxOperations,
+                            @Value("${spec2tool.limits.max-ref-steps:1000000}") long maxRefSteps,
+                            @Value("${spec2tool.limits.timeout:30s}") Duration timeout) {
+        this.maxBodySize = maxBodySize.toBytes();
+        this.maxNestingDepth = maxNestingDepth;
+        this.maxOperations = maxOperations;
+        this.maxRefSteps = maxRefSteps;
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    /**
+     * @return Size of a request body in bytes, 0 for no limit.
+     */
+    public long maxBodySize() {
+        return maxBodySize;
+    }
+
+    /**
+     * @return Budget of a conversion starting now.
+     */
+    Budget start() {
+        return new Budget(System.nanoTime());
+    }
+
+    /**
+     * Budget of one conversion. Safe to use from multiple threads.
+     */
+    final class Budget {
+        private final long start;
+        private final AtomicLong refSteps = new AtomicLong();
+
+        private Budget(long start) {
+            this.start = start;
+        }
+
+        void checkTime() {
+            if (timeoutNanos > 0 && System.nanoTime() - start > timeoutNanos) {
+                throw new LimitExceededException(TIME,
+                        "Conversion takes longer than " + Duration.ofNanos(timeoutNanos).toMillis() + " ms");
+            }
+        }
+
+        void checkOperations(int operations) {
+            if (maxOperations > 0 && operations > maxOperations) {
+                throw new LimitExceededException(OPERATIONS,
+                        "Specification has " + operations + " operations, at most " + maxOperations + " are allowed");
+            }
+        }
+
+        // Helper: one reference followed; also checks the time, since refs are where conversions explode
+        void refStep() {
+            if (maxRefSteps > 0 && refSteps.incrementAndGet() > maxRefSteps) {
+                throw new LimitExceededException(REF_STEPS,
+                        "Schemas of the specification need more than " + maxRefSteps + " reference steps");
+            }
+            checkTime();
+        }
+
+        long refSteps() {
+            return refSteps.get();
+        }
+
+        /**
+         * Walk a document without recursion, so that a deep document cannot overflow the stack.
+         */
+        void checkNesting(JsonNode root) {
+            if (maxNestingDepth <= 0 || root == null) return;
+            Deque<Iterator<JsonNode>> path = new ArrayDeque<>();
+            path.push(root.elements());
+            while (!path.isEmpty()) {
+                Iterator<JsonNode> children = path.peek();
+                if (!children.hasNext()) {
+                    path.pop();
+                    continue;
+                }
+                JsonNode child = children.next();
+                if (child.isContainerNode()) {
+                    if (path.size() + 1 > maxNestingDepth) {
+                        throw new LimitExceededException(NESTING_DEPTH,
+                                "Specification is nested deeper than " + maxNestingDepth + " levels");
+                    }
+                    path.push(child.elements());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package de.thm.spec2tool.mapper;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.Paths;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.oas.models.servers.Server;
+import io.swagger.v3.parser.core.models.ParseOptions;
+import io.swagger.v3.parser.util.OpenAPIDeserializer;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Reads the parts of a plain OpenAPI 3.0 JSON document which the mapper needs, without a full
+ * {@link io.swagger.v3.parser.OpenAPIV3Parser} run.
+ * <p>
+ * Only info, servers, paths with their parameters, summaries and request bodies are read; responses, callbacks,
+ * security, tags and examples are skipped. Schemas are still deserialized by swagger, so they are identical to those
+ * of the full parser, but only for the components a tool actually references, and only when they are first looked
+ * up. Operations the filter does not select are skipped before their parameters and request bodies are read.
+ * Documents which are not plain OpenAPI 3.0 JSON are not read at all; the caller falls back to the full parser.
+ * <p>
+ * One instance is meant to be used for a single conversion.
+ */
+class FastOpenApiReader {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final OpenAPIDeserializer deserializer = new OpenAPIDeserializer();
+    private final OpenAPIDeserializer.ParseResult result = new OpenAPIDeserializer.ParseResult();
+    private final JsonNode schemas;
+    private final OperationFilter filter;
+    private final OpenAPI api;
+
+    private FastOpenApiReader(ObjectNode root, OperationFilter filter) {
+        // Same options as the full parser uses by default
+        ParseOptions options = new ParseOptions();
+        result.setAllowEmptyStrings(options.isAllowEmptyString());
+        result.setInferSchemaType(options.isInferSchemaType());
+        result.setValidateInternalRefs(options.isValidateInternalRefs());
+        result.setOaiAuthor(options.isOaiAuthor());
+        this.schemas = root.path("components").path("schemas");
+        this.filter = filter;
+        this.api = read(root);
+    }
+
+    /**
+     * @param raw The API specification as JSON or YAML document.
+     * @return The document as JSON tree, or null if it is not a JSON object.
+     */
+    static JsonNode readTree(String raw) {
+        if (raw == null || !raw.stripLeading().startsWith("{")) return null;
+        try {
+            return MAPPER.readTree(raw);
+        } catch (JsonProcessingException e) {
+            // The full parser reports the error
+            return null;
+        }
+    }
+
+    /**
+     * @param root The API specification as JSON tree.
+     * @param filter Operations to read.
+     * @return The document, or null if it is not an OpenAPI 3.0 document.
+     */
+    static FastOpenApiReader of(JsonNode root, OperationFilter filter) {
+        if (root == null || !root.isObject()) return null;
+        JsonNode version = root.get("openapi");
+        if (version == null || !version.isTextual() || !version.textValue().startsWith("3.0")) return null;
+        return new FastOpenApiReader((ObjectNode) root, filter);
+    }
+
+    /**
+     * @return Info, servers and the paths with selected operations. Components are not set, see {@link #components()}.
+     */
+    OpenAPI api() {
+        return api;
+    }
+
+    /**
+     * @return Lookup of the schemas in {@code components/schemas} by name, null for missing or invalid entries.
+     * Safe to use from multiple threads.
+     */
+    Function<String, Schema<?>> components() {
+        return name -> {
+            JsonNode node = schemas.get(name);
+            if (!(node instanceof ObjectNode)) return null;
+            // Neither the deserializer nor the result are thread-safe
+            synchronized (this) {
+                return deserializer.getSchema(node, "components.schemas." + name, result);
+            }
+        };
+    }
+
+    private OpenAPI read(ObjectNode root) {
+        OpenAPI api = new OpenAPI();
+        api.setOpenapi(root.get("openapi").textValue());
+        if (root.get("info") instanceof ObjectNode info) api.setInfo(deserializer.getInfo(info, "info", result));
+
+        if (root.get("servers") instanceof ArrayNode servers && !servers.isEmpty()) {
+            api.setServers(deserializer.getServersList(servers, "servers", result, null));
+        } else {
+            api.setServers(List.of(new Server().url("/")));
+        }
+
+        if (root.get("paths") instanceof ObjectNode paths) {
+            Paths items = new Paths();
+            Iterator<Map.Entry<String, JsonNode>> fields = paths.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (field.getKey().startsWith("x-") || !(field.getValue() instanceof ObjectNode item)) continue;
+                if (!filter.acceptsPath(field.getKey())) continue;
+                items.addPathItem(field.getKey(), pathItem(field.getKey(), item));
+            }
+            api.setPaths(items);
+        }
+        return api;
+    }
+
+    private PathItem pathItem(String path, ObjectNode node) {
+        PathItem item = new PathItem();
+        // Like the full parser, a referenced path item is not resolved and has no operations
+        if (node.has("$ref")) return item.$ref(node.get("$ref").asText());
+
+        String location = "paths." + path;
+        item.setGet(operation(path, node, "get", location));
+        item.setPut(operation(path, node, "put", location));
+        item.setPost(operation(path, node, "post", location));
+        item.setHead(operation(path, node, "head", location));
+        item.setDelete(operation(path, node, "delete", location));
+        item.setPatch(operation(path, node, "patch", location));
+        item.setOptions(operation(path, node, "options", location));
+        item.setTrace(operation(path, node, "trace", location));
+        if (item.readOperations().isEmpty()) return item;
+
+        if (node.get("parameters") instanceof ArrayNode parameters && !parameters.isEmpty()) {
+            item.setParameters(deserializer.getParameterList(parameters, location, result));
+        }
+        return item;
+    }
+
+    private Operation operation(String path, ObjectNode pathItem, String method, String location) {
+        if (!(pathItem.get(method) instanceof ObjectNode node)) return null;
+        List<String> tags = tags(node);
+        String operationId = string(node, "operationId");
+        if (!filter.test(path, method.toUpperCase(Locale.ROOT), tags, operationId)) return null;
+
+        location = location + "(" + method + ")";
+        Operation operation = new Operation();
+        operation.setTags(tags);
+        operation.setOperationId(operationId);
+        operation.setSummary(string(node, "summary"));
+        operation.setDescription(string(node, "description"));
+        if (node.get("parameters") instanceof ArrayNode parameters) {
+            operation.setParameters(deserializer.getParameterList(parameters, location, result));
+        }
+        if (node.get("requestBody") instanceof ObjectNode body) {
+            operation.setRequestBody(deserializer.getRequestBody(body, location, result));
+        }
+        return operation;
+    }
+
+    // Helper: tags of an operation, null if it has none
+    private static List<String> tags(ObjectNode node) {
+        if (!(node.get("tags") instanceof ArrayNode array) || array.isEmpty()) return null;
+        List<String> tags = new ArrayList<>(array.size());
+        for (JsonNode tag : array) if (tag.isTextual()) tags.add(tag.textValue());
+        return tags;
+    }
+
+    // Helper: scalar values as text, like the full parser does with empty strings allowed
+    private static String string(ObjectNode node, String key) {
+        JsonNode value = node.get(key);
+        return value == null || !value.isValueNode() || value.isNull() ? null : value.asText();
+    }
+}
@@ -1,15 +1,14 @@
 package de.thm.spec2tool.mapper;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.thm.spec2tool.dto.ToolDto;
 import de.thm.spec2tool.dto.ToolSetDto;
 import de.thm.spec2tool.exception.ConversionException;
+import de.thm.spec2tool.metrics.ConversionProfile;
 import de.thm.spec2tool.service.ConversionServiceImpl;
 import io.swagger.v3.oas.models.*;
 import io.swagger.v3.oas.models.info.Info;
-import io.swagger.v3.oas.models.media.ArraySchema;
 import io.swagger.v3.oas.models.media.Content;
 import io.swagger.v3.oas.models.media.MediaType;
 import io.swagger.v3.oas.models.media.Schema;
@@ -17,50 +16,192 @@ import io.swagger.v3.oas.models.parameters.Parameter;
 import io.swagger.v3.oas.models.PathItem;
 import io.swagger.v3.oas.models.servers.Server;
 import io.swagger.v3.parser.OpenAPIV3Parser;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 @Component
 public class OpenApiMapper {
 
+    /**
+     * Version of the mapping rules. Increase it whenever the tool sets produced for the same spec change,
+     * so that clients do not keep serving stale tool sets for an unchanged ETag.
+     */
+    public static final int REVISION = 1;
+
     private static final ObjectMapper MAPPER = new ObjectMapper();
 
+    private final int maxSchemaDepth;
+    private final int parallelThreshold;
+    private final boolean fastPath;
+    private final ConversionLimits limits;
+    private final ForkJoinPool pool;
+
     Logger logger = LoggerFactory.getLogger(ConversionServiceImpl.class);
 
+    /**
+     * @param maxSchemaDepth Nesting depth after which inlined schemas are cut.
+     * @param parallelThreshold Number of operations from which on the tools are converted in parallel, 0 to disable.
+     * @param parallelism Number of threads used for parallel conversions, shared by all requests.
+     * @param fastPath Whether OpenAPI 3.0 JSON documents are read by the {@link FastOpenApiReader}.
+     * @param limits Limits every conversion is checked against.
+     */
+    public OpenApiMapper(@Value("${spec2tool.mapper.max-schema-depth:16}") int maxSchemaDepth,
+                         @Value("${spec2tool.mapper.parallel-threshold:256}") int parallelThreshold,
+                         @Value("${spec2tool.mapper.parallelism:0}") int parallelism,
+                         @Value("${spec2tool.mapper.fast-path:true}") boolean fastPath,
+                         ConversionLimits limits) {
+        this.maxSchemaDepth = maxSchemaDepth;
+        this.parallelThreshold = parallelThreshold;
+        this.fastPath = fastPath;
+        this.limits = limits;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @return The mapping rules and the settings which affect the tool sets, e.g. '1.16'.
+     */
+    public String revision() {
+        return REVISION + "." + maxSchemaDepth;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdown();
+    }
+
     /**
      * Convert an API spec into a tool specification.
      * @param spec The API specification as Map of Strings to Objects.
      * @return A ToolSpecification object.
      */
-    public ToolSetDto convert(Map<String, Object> spec) throws JsonProcessingException {
-        logger.info("====== Start to convert spec to tool ======");
-        logger.debug("Convert spec to raw string...");
-        String raw = MAPPER.writeValueAsString(spec);
+    public ToolSetDto convert(Map<String, Object> spec) {
+        ToolSetCollector collector = new ToolSetCollector();
+        convert(spec, collector, new ConversionProfile());
+        return collector.toToolSet();
+    }
+
+    /**
+     * Convert an API spec into a tool specification.
+     * @param raw The API specification as JSON or YAML document.
+     * @return A ToolSpecification object.
+     */
+    public ToolSetDto convert(String raw) {
+        ToolSetCollector collector = new ToolSetCollector();
+        convert(raw, collector, new ConversionProfile());
+        return collector.toToolSet();
+    }
+
+    /**
+     * Convert an API spec and pass every tool to the sink as soon as it is converted.
+     * @param spec The API specification as Map of Strings to Objects.
+     * @param sink Receiver of the tool set header and the tools.
+     * @param profile Receives the duration of every stage.
+     */
+    public void convert(Map<String, Object> spec, ToolSink sink, ConversionProfile profile) {
+        convert(spec, OperationFilter.ALL, sink, profile);
+    }
+
+    /**
+     * Convert the selected operations of an API spec and pass every tool to the sink as soon as it is converted.
+     * @param spec The API specification as Map of Strings to Objects.
+     * @param filter Operations to convert.
+     * @param sink Receiver of the tool set header and the tools.
+     * @param profile Receives the duration of every stage.
+     */
+    public void convert(Map<String, Object> spec, OperationFilter filter, ToolSink sink, ConversionProfile profile) {
+        logger.debug("====== Start to convert spec to tool ======");
+        ConversionLimits.Budget budget = limits.start();
+        logger.debug("Convert spec to JSON tree...");
+        JsonNode node = profile.time("read", () -> MAPPER.valueToTree(spec));
+        budget.checkNesting(node);
+
+        FastOpenApiReader reader = fastPath ? profile.time("parse", () -> FastOpenApiReader.of(node, filter)) : null;
+        if (reader != null) {
+            logger.debug("Read OpenAPI 3.0 JSON spec on fast path...");
+            convert(reader.api(), reader.components(), filter, budget, sink, profile);
+            return;
+        }
 
         logger.debug("Parse spec to OpenApi object format...");
-        OpenAPI api = new OpenAPIV3Parser().readContents(raw, null, null).getOpenAPI();
+        OpenAPI api = profile.time("parse", () -> new OpenAPIV3Parser().parseJsonNode(null, node).getOpenAPI());
+        convert(api, components(api), filter, budget, sink, profile);
+    }
+
+    /**
+     * Convert an API spec and pass every tool to the sink as soon as it is converted.
+     * @param raw The API specification as JSON or YAML document.
+     * @param sink Receiver of the tool set header and the tools.
+     * @param profile Receives the duration of every stage.
+     */
+    public void convert(String raw, ToolSink sink, ConversionProfile profile) {
+        convert(raw, OperationFilter.ALL, sink, profile);
+    }
+
+    /**
+     * Convert the selected operations of an API spec and pass every tool to the sink as soon as it is converted.
+     * @param raw The API specification as JSON or YAML document.
+     * @param filter Operations to convert.
+     * @param sink Receiver of the tool set header and the tools.
+     * @param profile Receives the duration of every stage.
+     */
+    public void convert(String raw, OperationFilter filter, ToolSink sink, ConversionProfile profile) {
+        logger.debug("====== Start to convert spec to tool ======");
+        ConversionLimits.Budget budget = limits.start();
+        // JSON documents are checked before they are parsed, YAML is limited by the nesting limit of the YAML parser
+        JsonNode node = profile.time("parse", () -> FastOpenApiReader.readTree(raw));
+        budget.checkNesting(node);
+
+        FastOpenApiReader reader = fastPath && node != null
+                ? profile.time("parse", () -> FastOpenApiReader.of(node, filter)) : null;
+        if (reader != null) {
+            logger.debug("Read OpenAPI 3.0 JSON spec on fast path...");
+            convert(reader.api(), reader.components(), filter, budget, sink, profile);
+            return;
+        }
+
+        logger.debug("Parse raw spec to OpenApi object format...");
+        OpenAPI api = profile.time("parse", () -> new OpenAPIV3Parser().readContents(raw, null, null).getOpenAPI());
+        convert(api, components(api), filter, budget, sink, profile);
+    }
+
+    // Helper: lookup of the schemas parsed by the full parser
+    private static Function<String, Schema<?>> components(OpenAPI api) {
+        Map<String, Schema> schemas = Optional.ofNullable(api).map(OpenAPI::getComponents)
+                .map(Components::getSchemas).orElse(Map.of());
+        return schemas::get;
+    }
+
+    private void convert(OpenAPI api, Function<String, Schema<?>> components, OperationFilter filter,
+                         ConversionLimits.Budget budget, ToolSink sink, ConversionProfile profile) {
         if (api == null) {
             logger.error("Failed to parse spec to OpenApi obejct!");
             throw new IllegalArgumentException("Failed to parse OpenAPI.");
         }
+        budget.checkTime();
 
         logger.debug("Extract URLs from spec and set first as base URL...");
         String baseUrl = Optional.ofNullable(api.getServers()).filter(s -> !s.isEmpty())
                 .map(s -> s.get(0)).map(Server::getUrl).orElse("");
 
         logger.debug("Set head entries: 'name', 'description' and 'toolset'...");
-        ObjectNode toolset = MAPPER.createObjectNode();
-        toolset.put("name", toSnakeCase(Optional.ofNullable(api.getInfo()).map(Info::getTitle).orElse("toolset")));
-        toolset.put("description", toSnakeCase(Optional.ofNullable(api.getInfo()).map(Info::getDescription).orElse("")));
-        ArrayNode tools = MAPPER.createArrayNode();
-        toolset.set("tools", tools);
+        String name = toSnakeCase(Optional.ofNullable(api.getInfo()).map(Info::getTitle).orElse("toolset"));
+        String description = toSnakeCase(Optional.ofNullable(api.getInfo()).map(Info::getDescription).orElse(""));
+        sink.header(name, description);
+        List<PathOperation> operations = new ArrayList<>();
+        SchemaInliner inliner = new SchemaInliner(components, maxSchemaDepth, budget);
 
         if (api.getPaths() != null) {
             api.getPaths().forEach((pathKey, pathItem) -> {
+                if (!filter.acceptsPath(pathKey)) return;
                 if (pathItem == null) {
                     logger.error("No corresponding path for key {}... abort", pathKey);
                     throw new ConversionException("No corresponding path for key " + pathKey);
@@ -72,135 +213,197 @@ public class OpenApiMapper {
                         logger.error("No operation for HTTP Method {}, abort...", httpMethod);
                         throw new ConversionException("No Operation defined for defined HTTP Method " + httpMethod);
                     }
+                    // Skipped before any of its schemas is resolved
+                    if (!filter.test(pathKey, httpMethod.name(), operation.getTags(), operation.getOperationId())) return;
+                    operations.add(new PathOperation(pathKey, pathItem, httpMethod, operation));
+                });
+            });
+        }
 
-                    String summary = Optional.ofNullable(operation.getSummary())
-                            .orElse(Optional.ofNullable(operation.getDescription()).orElse(httpMethod + " " + pathKey));
-
-                    logger.info("Add tool with following attributes: name: {}\ndescription: {}\nrequestMethod: {}\nendpoint: {}",
-                            toSnakeCase(summary), summary, httpMethod.name(), concat(baseUrl, pathKey));
-
-                    ObjectNode tool = MAPPER.createObjectNode();
-                    tool.put("name", toSnakeCase(summary));
-                    tool.put("description", summary);
-                    tool.put("requestMethod", httpMethod.name());
-                    tool.put("endpoint", concat(baseUrl, pathKey));
-
-                    // Create nodes for mandatory fields inputSchema, properties and required
-                    ObjectNode inputSchema = MAPPER.createObjectNode();
-                    inputSchema.put("type", "object");
-                    ObjectNode properties  = MAPPER.createObjectNode();
-                    ArrayNode rootRequired = MAPPER.createArrayNode();
-
-                    // Buckets for parameters
-                    ObjectNode pathProps = MAPPER.createObjectNode();
-                    ObjectNode queryProps = MAPPER.createObjectNode();
-                    ObjectNode headerProps = MAPPER.createObjectNode();
-                    ArrayNode pathReq = MAPPER.createArrayNode();
-
-                    // Merge path-level + operation-level parameters
-                    List<Parameter> params = new ArrayList<>();
-                    if (pathItem.getParameters() != null) params.addAll(pathItem.getParameters());
-                    if (operation.getParameters() != null) params.addAll(operation.getParameters());
-
-                    // 7) Classify parameters by "in": path/query/header
-                    logger.info("Add parameters to input schema");
-                    for (Parameter parameter : params) {
-                        if (parameter == null || parameter.getIn() == null) {
-                            logger.warn("Parameter is null or skipping...");
-                            continue;
-                        }
-                        String parameterName = parameter.getName();
-                        String parameterDesc = Optional.ofNullable(parameter.getDescription()).orElse("string");
-                        Schema<?> parameterSchema = parameter.getSchema();
-
-                        if (parameterSchema == null) throw new ConversionException("Schema for parameter " + parameterName + " is null!");
-
-                        ObjectNode n = MAPPER.createObjectNode();
-                        switch (parameter.getIn()) {
-                            case "path" -> {
-                                logger.debug("Add path parameter {}", parameterName);
-                                n.put("type",  parameterSchema.getTypes().toArray()[0].toString());
-                                n.put("description", parameterDesc.endsWith("(path)") ? parameterDesc : parameterDesc + " (path)");
-                                pathProps.set(parameterName, n);
-                                if (parameter.getRequired()) pathReq.add(parameterName);
-                            }
-                            case "query" -> {
-                                logger.debug("Add Query parameter {}", parameterName);
-                                n.put("type", parameterSchema.getTypes().toArray()[0].toString());
-                                n.put("description", parameterDesc);
-                                queryProps.set(parameterName, n);
-                            }
-                            case "header" -> {
-                                logger.debug("Add header {}", parameterName);
-                                n.put("description", parameterDesc);
-                                headerProps.set(parameterName, n);
-                            }
-                        }
-                    }
+        if (!filter.isAll()) logger.debug("Selected {} operations with filter {}", operations.size(), filter);
+        budget.checkOperations(operations.size());
+        profile.setOperations(operations.size());
+        long start = System.nanoTime();
+        if (parallelThreshold > 0 && operations.size() >= parallelThreshold) {
+            // Chunks of parallelThreshold operations, so the first tools reach the sink early
+            for (int from = 0; from < operations.size(); from += parallelThreshold) {
+                List<PathOperation> chunk = operations.subList(from, Math.min(from + parallelThreshold, operations.size()));
+                ToolDto[] tools = toToolsParallel(inliner, baseUrl, chunk, budget, profile);
+                for (int i = 0; i < tools.length; i++) {
+                    sink.tool(chunk.get(i).pathKey(), chunk.get(i).operation().getOperationId(), tools[i]);
+                }
+            }
+        } else {
+            for (PathOperation operation : operations) {
+                budget.checkTime();
+                sink.tool(operation.pathKey(), operation.operation().getOperationId(),
+                        toTool(inliner, baseUrl, operation, profile));
+            }
+        }
+        profile.add("build", System.nanoTime() - start);
+        profile.setTools(operations.size());
 
-                    logger.debug("Check if body is required and has jsonFormat...");
-                    boolean bodyRequired = operation.getRequestBody() != null &&
-                            operation.getRequestBody().getRequired();
-                    boolean hasJsonBody = operation.getRequestBody() != null &&
-                            operation.getRequestBody().getContent() != null &&
-                            operation.getRequestBody().getContent().containsKey("application/json");
-
-                    ObjectNode bodyNode = null;
-                    if (hasJsonBody) {
-                        // Resolve and convert body schema
-                        Schema<?> bodySchema = resolveSchema(api, preferJsonSchema(operation.getRequestBody().getContent()));
-                        bodyNode = schemaToBodyObject(api, bodySchema);
-                    }
+        logger.debug("====== Ending to convert spec to tool ======");
+    }
 
-                    if (!pathProps.isEmpty() || !pathReq.isEmpty()) {
-                        logger.debug("Set path properties...");
-                        properties.set("path", objWithProps(pathProps, pathReq));
-                        if (!pathReq.isEmpty()) { rootRequired.add("path"); }
-                    }
+    /**
+     * Convert the operations on the shared pool. The tools keep the order of the operations, and if conversions
+     * fail, the exception of the first failed operation is thrown, just like in a sequential conversion.
+     */
+    private ToolDto[] toToolsParallel(SchemaInliner inliner, String baseUrl, List<PathOperation> operations,
+                                      ConversionLimits.Budget budget, ConversionProfile profile) {
+        logger.debug("Convert {} operations in parallel...", operations.size());
+        Object[] results;
+        try {
+            results = pool.submit(() -> operations.parallelStream().map(o -> {
+                try {
+                    budget.checkTime();
+                    return (Object) toTool(inliner, baseUrl, o, profile);
+                } catch (RuntimeException e) {
+                    return e;
+                }
+            }).toArray()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConversionException("Conversion was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        }
 
-                    if (!queryProps.isEmpty()) {
-                        logger.debug("Set query properties...");
-                        properties.set("query", objWithProps(queryProps, null));
-                    }
+        ToolDto[] tools = new ToolDto[results.length];
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] instanceof RuntimeException e) throw e;
+            tools[i] = (ToolDto) results[i];
+        }
+        return tools;
+    }
 
-                    if (!headerProps.isEmpty()) {
-                        logger.debug("Set header...");
-                        properties.set("headers", headerProps);
-                    }
+    /**
+     * Convert a single operation of the spec into a tool.
+     * The input schema is built as plain maps and lists, which are serialized as they are.
+     */
+    private ToolDto toTool(SchemaInliner inliner, String baseUrl, PathOperation pathOperation, ConversionProfile profile) {
+        String pathKey = pathOperation.pathKey();
+        PathItem pathItem = pathOperation.pathItem();
+        PathItem.HttpMethod httpMethod = pathOperation.httpMethod();
+        Operation operation = pathOperation.operation();
+        String summary = Optional.ofNullable(operation.getSummary())
+                .orElse(Optional.ofNullable(operation.getDescription()).orElse(httpMethod + " " + pathKey));
+
+        if (logger.isTraceEnabled()) {
+            logger.trace("Add tool with following attributes: name: {}\ndescription: {}\nrequestMethod: {}\nendpoint: {}",
+                    toSnakeCase(summary), summary, httpMethod.name(), concat(baseUrl, pathKey));
+        }
 
-                    // Body: include only if object-with-props or array
-                    if (bodyNode != null) {
-                        String bodyRootType = bodyNode.path("type").asText(null);
-                        boolean includeBody = "array".equals(bodyRootType)
-                                || ("object".equals(bodyRootType) && !bodyNode.path("properties").isEmpty());
-                        if (includeBody) {
-                            logger.debug("Add body properties...");
-                            properties.set("body", bodyNode);
-                            if (bodyRequired) rootRequired.add("body");
-                        }
-                    }
+        // Create nodes for mandatory fields inputSchema, properties and required
+        Map<String, Object> inputSchema = new LinkedHashMap<>();
+        inputSchema.put("type", "object");
+        Map<String, Object> properties = new LinkedHashMap<>();
+        List<String> rootRequired = new ArrayList<>();
+
+        // Buckets for parameters
+        Map<String, Object> pathProps = new LinkedHashMap<>();
+        Map<String, Object> queryProps = new LinkedHashMap<>();
+        Map<String, Object> headerProps = new LinkedHashMap<>();
+        List<String> pathReq = new ArrayList<>();
+
+        // Merge path-level + operation-level parameters
+        List<Parameter> params = new ArrayList<>();
+        if (pathItem.getParameters() != null) params.addAll(pathItem.getParameters());
+        if (operation.getParameters() != null) params.addAll(operation.getParameters());
+
+        // 7) Classify parameters by "in": path/query/header
+        logger.trace("Add parameters to input schema");
+        for (Parameter parameter : params) {
+            if (parameter == null || parameter.getIn() == null) {
+                logger.warn("Parameter is null or skipping...");
+                continue;
+            }
+            String parameterName = parameter.getName();
+            String parameterDesc = Optional.ofNullable(parameter.getDescription()).orElse("string");
+            Schema<?> parameterSchema = parameter.getSchema();
+
+            if (parameterSchema == null) throw new ConversionException("Schema for parameter " + parameterName + " is null!");
+
+            Map<String, Object> n = new LinkedHashMap<>();
+            switch (parameter.getIn()) {
+                case "path" -> {
+                    logger.trace("Add path parameter {}", parameterName);
+                    n.put("type",  parameterSchema.getTypes().toArray()[0].toString());
+                    n.put("description", parameterDesc.endsWith("(path)") ? parameterDesc : parameterDesc + " (path)");
+                    pathProps.put(parameterName, n);
+                    if (Boolean.TRUE.equals(parameter.getRequired())) pathReq.add(parameterName);
+                }
+                case "query" -> {
+                    logger.trace("Add Query parameter {}", parameterName);
+                    n.put("type", parameterSchema.getTypes().toArray()[0].toString());
+                    n.put("description", parameterDesc);
+                    queryProps.put(parameterName, n);
+                }
+                case "header" -> {
+                    logger.trace("Add header {}", parameterName);
+                    n.put("description", parameterDesc);
+                    headerProps.put(parameterName, n);
+                }
+            }
+        }
 
-                    logger.debug("Set schema of tool");
-                    inputSchema.set("properties", properties);
-                    if (!rootRequired.isEmpty()) inputSchema.set("required", rootRequired);
-                    tool.set("inputSchema", inputSchema);
+        logger.trace("Check if body is required and has jsonFormat...");
+        boolean bodyRequired = operation.getRequestBody() != null &&
+                Boolean.TRUE.equals(operation.getRequestBody().getRequired());
+        boolean hasJsonBody = operation.getRequestBody() != null &&
+                operation.getRequestBody().getContent() != null &&
+                operation.getRequestBody().getContent().containsKey("application/json");
+
+        Map<String, Object> bodyNode = null;
+        if (hasJsonBody) {
+            // Resolve and inline body schema
+            bodyNode = profile.time("resolve", () -> inliner.inline(preferJsonSchema(operation.getRequestBody().getContent())));
+        }
 
-                    logger.info("Successfully convert tool '{}'", toSnakeCase(operation.getSummary()));
-                    tools.add(tool);
-                });
-            });
+        if (!pathProps.isEmpty() || !pathReq.isEmpty()) {
+            logger.trace("Set path properties...");
+            properties.put("path", objWithProps(pathProps, pathReq));
+            if (!pathReq.isEmpty()) { rootRequired.add("path"); }
+        }
+
+        if (!queryProps.isEmpty()) {
+            logger.trace("Set query properties...");
+            properties.put("query", objWithProps(queryProps, null));
         }
 
-        logger.info("====== Ending to convert spec to tool ======");
-        return MAPPER.treeToValue(toolset, ToolSetDto.class);
+        if (!headerProps.isEmpty()) {
+            logger.trace("Set header...");
+            properties.put("headers", headerProps);
+        }
+
+        // Body: include only if object-with-props, array or alternatives
+        if (bodyNode != null) {
+            Object bodyRootType = bodyNode.get("type");
+            boolean includeBody = "array".equals(bodyRootType) || bodyNode.containsKey("oneOf")
+                    || ("object".equals(bodyRootType) && bodyNode.get("properties") instanceof Map<?, ?> p && !p.isEmpty());
+            if (includeBody) {
+                logger.trace("Add body properties...");
+                properties.put("body", bodyNode);
+                if (bodyRequired) rootRequired.add("body");
+            }
+        }
+
+        logger.trace("Set schema of tool");
+        inputSchema.put("properties", properties);
+        if (!rootRequired.isEmpty()) inputSchema.put("required", rootRequired);
+
+        if (logger.isTraceEnabled()) logger.trace("Successfully convert tool '{}'", toSnakeCase(operation.getSummary()));
+        return new ToolDto(toSnakeCase(summary), summary, httpMethod.name(), concat(baseUrl, pathKey), inputSchema);
     }
 
     // Helper: wrap props (+ optional required) into a { type:"object", properties, required? } node
-    private static ObjectNode objWithProps(ObjectNode props, ArrayNode required) {
-        ObjectNode n = MAPPER.createObjectNode();
+    private static Map<String, Object> objWithProps(Map<String, Object> props, List<String> required) {
+        Map<String, Object> n = new LinkedHashMap<>();
         n.put("type", "object");
-        n.set("properties", props == null ? MAPPER.createObjectNode() : props);
-        if (required != null && !required.isEmpty()) n.set("required", required);
+        n.put("properties", props == null ? new LinkedHashMap<>() : props);
+        if (required != null && !required.isEmpty()) n.put("required", required);
         return n;
     }
 
@@ -211,72 +414,6 @@ public class OpenApiMapper {
         return mt != null ? mt.getSchema() : content.values().stream().findFirst().map(MediaType::getSchema).orElse(null);
     }
 
-    // Helper: follow $ref → components/schemas to concrete schema (up to 10 hops)
-    private static Schema<?> resolveSchema(OpenAPI api, Schema<?> schema) {
-        if (schema == null) return null;
-        Schema<?> cur = schema;
-        for (int i = 0; i < 10 && cur.get$ref() != null; i++) {
-            String name = cur.get$ref().substring(cur.get$ref().lastIndexOf('/') + 1);
-            Schema<?> next = Optional.ofNullable(api.getComponents())
-                    .map(Components::getSchemas).map(m -> m.get(name)).orElse(null);
-            if (next == null) break;
-            cur = next;
-        }
-        return cur;
-    }
-
-    // Helper: convert OpenAPI schema to compact JSON-schema-like node for body (object/array only)
-    private static ObjectNode schemaToBodyObject(OpenAPI api, Schema<?> schema) {
-        ObjectNode body = MAPPER.createObjectNode();
-        if (schema == null) {
-            // Empty object; caller decides whether to include
-            body.put("type", "object");
-            body.set("properties", MAPPER.createObjectNode());
-            return body;
-        }
-        Schema<?> r = resolveSchema(api, schema);
-
-        // Array body: { type:"array", items:{ type, properties? } }
-        if (r instanceof ArraySchema arr) {
-            body.put("type", "array");
-            Schema<?> items = resolveSchema(api, arr.getItems());
-            ObjectNode itemsNode = MAPPER.createObjectNode();
-            itemsNode.put("type", items != null && items.getType() != null ? items.getType() : "object");
-            if (items != null && "object".equals(items.getType()) && items.getProperties() != null) {
-                ObjectNode p = MAPPER.createObjectNode();
-                items.getProperties().forEach((k, v) -> p.set(k, fieldNode(resolveSchema(api, (Schema<?>) v))));
-                itemsNode.set("properties", p);
-            }
-            body.set("items", itemsNode);
-            return body;
-        }
-
-        // Object body: { type:"object", properties:{...} }
-        body.put("type", r.getType() == null ? "object" : r.getType());
-        ObjectNode p = MAPPER.createObjectNode();
-        if (r.getProperties() != null) {
-            r.getProperties().forEach((k, v) -> p.set(k, fieldNode(resolveSchema(api, (Schema<?>) v))));
-        }
-        body.set("properties", p);
-        return body;
-    }
-
-    // Helper: field node with type/description; arrays include an "items" stub
-    private static ObjectNode fieldNode(Schema<?> s) {
-        ObjectNode n = MAPPER.createObjectNode();
-        if (s instanceof ArraySchema a) {
-            n.put("type", "array");
-            ObjectNode items = MAPPER.createObjectNode();
-            Schema<?> it = a.getItems();
-            items.put("type", it != null && it.getType() != null ? it.getType() : "object");
-            n.set("items", items);
-        } else {
-            n.put("type", s != null && !s.getTypes().isEmpty() ? s.getTypes().toArray()[0].toString() : "object");
-        }
-        n.put("description", s != null && s.getDescription() != null ? s.getDescription() : "string");
-        return n;
-    }
-
     // Helper: snake_case normalization for names
     private static String toSnakeCase(String s) {
         if (s == null) return "tool";
@@ -313,4 +450,7 @@ public class OpenApiMapper {
         });
         return m;
     }
+
+    private record PathOperation(String pathKey, PathItem pathItem, PathItem.HttpMethod httpMethod,
+                                 Operation operation) {}
 }
@@ -0,0 +1,126 @@
+package de.thm.spec2tool.mapper;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.thm.spec2tool.dto.ToolFilterDto;
+import de.thm.spec2tool.dto.ToolSelectorDto;
+import io.swagger.v3.oas.models.PathItem;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.*;
+
+/**
+ * Operations of a spec which are converted into tools. The mapper applies it before any schema is resolved, so the
+ * work of a conversion scales with the selected operations, not with the whole spec.
+ */
+public final class OperationFilter {
+
+    public static final OperationFilter ALL = new OperationFilter(null, null);
+
+    private static final AntPathMatcher PATHS = new AntPathMatcher();
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final Selector include;
+    private final Selector exclude;
+
+    private OperationFilter(Selector include, Selector exclude) {
+        this.include = include;
+        this.exclude = exclude;
+    }
+
+    /**
+     * @param filter Include and exclude selectors, null for all operations.
+     * @throws IllegalArgumentException If a selector names an unknown HTTP method.
+     */
+    public static OperationFilter of(ToolFilterDto filter) {
+        if (filter == null) return ALL;
+        Selector include = Selector.of(filter.include());
+        Selector exclude = Selector.of(filter.exclude());
+        return include == null && exclude == null ? ALL : new OperationFilter(include, exclude);
+    }
+
+    public boolean isAll() {
+        return include == null && exclude == null;
+    }
+
+    /**
+     * @return Whether operations of the path may be selected at all, so a path can be skipped before its
+     * operations are read.
+     */
+    public boolean acceptsPath(String path) {
+        return include == null || include.paths.isEmpty() || include.matchesPath(path);
+    }
+
+    /**
+     * @param method HTTP method in upper case.
+     * @param tags Tags of the operation, may be null.
+     * @param operationId Id of the operation, may be null.
+     */
+    public boolean test(String path, String method, Collection<String> tags, String operationId) {
+        return (include == null || include.matches(path, method, tags, operationId))
+                && (exclude == null || !exclude.matches(path, method, tags, operationId));
+    }
+
+    /**
+     * @return Canonical form of the filter, equal for filters which select the same operations of every spec.
+     * The values are JSON-escaped, so different filters never share it, e.g. the tag 'a, b' and the tags 'a', 'b'.
+     */
+    public String key() {
+        if (isAll()) return "all";
+        try {
+            return JSON.writeValueAsString(new ToolFilterDto(Selector.dto(include), Selector.dto(exclude)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return key();
+    }
+
+    private record Selector(SortedSet<String> tags, SortedSet<String> paths, SortedSet<String> methods,
+                            SortedSet<String> operationIds) {
+
+        // Helper: null for selectors without any criterion
+        private static Selector of(ToolSelectorDto selector) {
+            if (selector == null) return null;
+            SortedSet<String> methods = new TreeSet<>();
+            for (String method : values(selector.methods())) {
+                String name = method.toUpperCase(Locale.ROOT);
+                if (Arrays.stream(PathItem.HttpMethod.values()).noneMatch(m -> m.name().equals(name))) {
+                    throw new IllegalArgumentException("Unknown HTTP method " + method);
+                }
+                methods.add(name);
+            }
+            Selector result = new Selector(values(selector.tags()), values(selector.paths()), methods,
+                    values(selector.operationIds()));
+            return result.tags.isEmpty() && result.paths.isEmpty() && result.methods.isEmpty()
+                    && result.operationIds.isEmpty() ? null : result;
+        }
+
+        // Helper: the sorted values of a selector, null for none
+        private static ToolSelectorDto dto(Selector selector) {
+            return selector == null ? null : new ToolSelectorDto(List.copyOf(selector.tags),
+                    List.copyOf(selector.paths), List.copyOf(selector.methods), List.copyOf(selector.operationIds));
+        }
+
+        private static SortedSet<String> values(List<String> values) {
+            SortedSet<String> set = new TreeSet<>();
+            if (values != null) values.stream().filter(Objects::nonNull).forEach(set::add);
+            return set;
+        }
+
+        private boolean matchesPath(String path) {
+            for (String pattern : paths) if (PATHS.match(pattern, path)) return true;
+            return false;
+        }
+
+        private boolean matches(String path, String method, Collection<String> tags, String operationId) {
+            return (paths.isEmpty() || matchesPath(path))
+                    && (methods.isEmpty() || methods.contains(method))
+                    && (this.tags.isEmpty() || tags != null && tags.stream().anyMatch(this.tags::contains))
+                    && (operationIds.isEmpty() || operationIds.contains(operationId));
+        }
+    }
+}
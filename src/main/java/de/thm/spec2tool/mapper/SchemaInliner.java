@@ -0,0 +1,208 @@
+package de.thm.spec2tool.mapper;
+
+import io.swagger.v3.oas.models.Components;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.media.Schema;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Inlines the schemas of one spec into self-contained JSON-schema-like nodes.
+ * <p>
+ * Every entry of {@code components/schemas} is resolved and converted once per instance, the converted node is
+ * memoized and shared by all tools that reference it. Memoized nodes must therefore not be modified.
+ * A reference back to a component which is currently expanded, or any node deeper than {@code maxDepth},
+ * is cut off and replaced by a stub with type and description only. Every reference followed is charged to the
+ * budget of the conversion.
+ * <p>
+ * One instance is meant to be used for a single conversion. It is safe to use from multiple threads.
+ */
+class SchemaInliner {
+
+    private static final String COMPONENTS_PREFIX = "#/components/schemas/";
+
+    private final Function<String, Schema<?>> components;
+    private final int maxDepth;
+    private final ConversionLimits.Budget budget;
+
+    private final Map<String, Optional<Schema<?>>> resolved = new ConcurrentHashMap<>();
+    private final Map<MemoKey, Memo> memo = new ConcurrentHashMap<>();
+
+    SchemaInliner(OpenAPI api, int maxDepth) {
+        this(name -> Optional.ofNullable(api.getComponents())
+                .map(Components::getSchemas).map(m -> (Schema<?>) m.get(name)).orElse(null), maxDepth,
+                ConversionLimits.NONE.start());
+    }
+
+    SchemaInliner(Function<String, Schema<?>> components, int maxDepth, ConversionLimits.Budget budget) {
+        this.components = components;
+        this.maxDepth = maxDepth;
+        this.budget = budget;
+    }
+
+    /**
+     * Inline a body schema. The root node has no description, like a request body.
+     * @param schema The schema, may be a $ref.
+     * @return The inlined node, e.g. { type:"object", properties:{...} }.
+     */
+    Map<String, Object> inline(Schema<?> schema) {
+        if (schema == null) {
+            // Empty object; caller decides whether to include
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("type", "object");
+            body.put("properties", new LinkedHashMap<>());
+            return body;
+        }
+        return node(schema, false, 0, new Context());
+    }
+
+    /**
+     * Follow a chain of $refs to the concrete schema. Every component is looked up only once.
+     * @param schema The schema, may be a $ref.
+     * @return The concrete schema, or the last schema of the chain if a reference cannot be resolved.
+     */
+    Schema<?> resolve(Schema<?> schema) {
+        return target(schema).schema;
+    }
+
+    // Helper: follow the $ref chain and remember the name of the last component reached
+    private Target target(Schema<?> schema) {
+        Schema<?> cur = schema;
+        String name = null;
+        Set<String> seen = null;
+        while (cur != null && cur.get$ref() != null) {
+            budget.refStep();
+            String next = componentName(cur.get$ref());
+            if (seen == null) seen = new HashSet<>();
+            if (!seen.add(next) || component(next) == null) break;
+            name = next;
+            cur = component(next);
+        }
+        return new Target(name, cur);
+    }
+
+    private Map<String, Object> node(Schema<?> schema, boolean field, int depth, Context ctx) {
+        if (depth > maxDepth) {
+            ctx.cuts++;
+            return stub(resolve(schema), field);
+        }
+        if (schema.get$ref() == null) return convert(schema, field, depth, ctx);
+
+        Target t = target(schema);
+        String name = t.name;
+        Schema<?> target = t.schema;
+        if (name == null || target.get$ref() != null) return stub(target, field);
+        if (ctx.stack.contains(name)) {
+            ctx.cuts++;
+            return stub(target, field);
+        }
+
+        MemoKey key = new MemoKey(name, field);
+        Memo cached = memo.get(key);
+        if (cached != null && depth + cached.height <= maxDepth) return cached.node;
+
+        int cuts = ctx.cuts;
+        int deepest = ctx.deepest;
+        ctx.deepest = depth;
+        ctx.stack.push(name);
+        Map<String, Object> node = convert(target, field, depth, ctx);
+        ctx.stack.pop();
+        int height = ctx.deepest - depth;
+        ctx.deepest = Math.max(deepest, ctx.deepest);
+
+        // Nodes which were cut depend on the path they were reached by and are not reused
+        if (ctx.cuts == cuts) memo.putIfAbsent(key, new Memo(node, height));
+        return node;
+    }
+
+    private Map<String, Object> convert(Schema<?> s, boolean field, int depth, Context ctx) {
+        ctx.deepest = Math.max(ctx.deepest, depth);
+        Map<String, Object> n = new LinkedHashMap<>();
+
+        if (s.getAllOf() != null && !s.getAllOf().isEmpty()) {
+            // allOf: merge properties and required of all parts into one object
+            Map<String, Object> props = new LinkedHashMap<>();
+            Set<String> required = new LinkedHashSet<>();
+            for (Schema<?> part : s.getAllOf()) {
+                Map<String, Object> p = node(part, false, depth + 1, ctx);
+                if (p.get("properties") instanceof Map<?, ?> pp) pp.forEach((k, v) -> props.put((String) k, v));
+                if (p.get("required") instanceof List<?> pr) pr.forEach(r -> required.add((String) r));
+            }
+            properties(s, depth, ctx, props, required);
+            n.put("type", "object");
+            n.put("properties", props);
+            if (!required.isEmpty()) n.put("required", new ArrayList<>(required));
+        } else if (s.getOneOf() != null && !s.getOneOf().isEmpty()
+                || s.getAnyOf() != null && !s.getAnyOf().isEmpty()) {
+            // oneOf/anyOf: keep the alternatives, each inlined on its own
+            List<Schema> alternatives = s.getOneOf() != null && !s.getOneOf().isEmpty() ? s.getOneOf() : s.getAnyOf();
+            List<Object> nodes = new ArrayList<>();
+            for (Schema<?> alternative : alternatives) nodes.add(node(alternative, false, depth + 1, ctx));
+            n.put("oneOf", nodes);
+        } else if ("array".equals(typeOf(s)) || s.getItems() != null) {
+            // Array: { type:"array", items:{...} }
+            n.put("type", "array");
+            n.put("items", s.getItems() == null ? Map.of("type", "object") : node(s.getItems(), false, depth + 1, ctx));
+        } else if ("object".equals(typeOf(s)) || s.getProperties() != null) {
+            // Object: { type:"object", properties:{...}, required? }
+            Map<String, Object> props = new LinkedHashMap<>();
+            Set<String> required = new LinkedHashSet<>();
+            properties(s, depth, ctx, props, required);
+            n.put("type", "object");
+            n.put("properties", props);
+            if (!required.isEmpty()) n.put("required", new ArrayList<>(required));
+        } else {
+            n.put("type", typeOf(s));
+        }
+
+        if (field) n.put("description", s.getDescription() != null ? s.getDescription() : "string");
+        return n;
+    }
+
+    // Helper: inline the properties of an object schema into the given buckets
+    private void properties(Schema<?> s, int depth, Context ctx, Map<String, Object> props, Set<String> required) {
+        if (s.getProperties() != null) {
+            s.getProperties().forEach((k, v) -> props.put(k, node(v, true, depth + 1, ctx)));
+        }
+        if (s.getRequired() != null) required.addAll(s.getRequired());
+    }
+
+    // Helper: node for a cut reference, carrying type and description only
+    private static Map<String, Object> stub(Schema<?> s, boolean field) {
+        Map<String, Object> n = new LinkedHashMap<>();
+        n.put("type", s == null || s.get$ref() != null ? "object" : typeOf(s));
+        if (field) n.put("description", s != null && s.getDescription() != null ? s.getDescription() : "string");
+        return n;
+    }
+
+    private Schema<?> component(String name) {
+        return resolved.computeIfAbsent(name, k -> Optional.ofNullable(components.apply(k))).orElse(null);
+    }
+
+    private static String componentName(String ref) {
+        return ref.startsWith(COMPONENTS_PREFIX) ? ref.substring(COMPONENTS_PREFIX.length())
+                : ref.substring(ref.lastIndexOf('/') + 1);
+    }
+
+    // Helper: first type of a schema (OpenAPI 3.0 'type' or 3.1 'types'), defaults to object
+    static String typeOf(Schema<?> s) {
+        if (s.getType() != null) return s.getType();
+        if (s.getTypes() != null && !s.getTypes().isEmpty()) return s.getTypes().iterator().next();
+        return "object";
+    }
+
+    private record Target(String name, Schema<?> schema) {}
+
+    private record MemoKey(String name, boolean field) {}
+
+    private record Memo(Map<String, Object> node, int height) {}
+
+    // State of one top-level inline call: components on the current path, number of cuts and deepest level reached
+    private static final class Context {
+        private final Deque<String> stack = new ArrayDeque<>();
+        private int cuts;
+        private int deepest;
+    }
+}
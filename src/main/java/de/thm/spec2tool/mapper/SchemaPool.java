@@ -0,0 +1,245 @@
+package de.thm.spec2tool.mapper;
+
+import de.thm.spec2tool.dto.ToolDto;
+import de.thm.spec2tool.dto.ToolSetDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of the canonical instances of the schema nodes and strings of all tool sets the service holds, so that
+ * identical subtrees, e.g. common error models, pagination parameters or the leaves of simple fields, are kept in
+ * memory only once, no matter how many tool sets contain them.
+ * <p>
+ * Nodes are compared shallowly, scalars by value and children by identity, so children must be interned before
+ * their parent. Pooled nodes are shared and must never be modified. The pool holds them weakly: a node drops out of
+ * the pool once no tool set refers to it anymore.
+ */
+@Component
+public class SchemaPool {
+
+    private final boolean enabled;
+    private final ConcurrentHashMap<Ref, Ref> pool = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> cleared = new ReferenceQueue<>();
+
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder strings = new LongAdder();
+    private final LongAdder savedBytes = new LongAdder();
+
+    /**
+     * @param enabled Whether nodes are shared across tool sets. Otherwise, {@link ToolSetOptimizer} only shares
+     *                identical subtrees within a tool set.
+     */
+    public SchemaPool(@Value("${spec2tool.output.shared-pool:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param node Map or list whose children are interned already, or a string.
+     * @return The pooled instance equal to the node, or the node itself, which is pooled from now on.
+     */
+    public <T> T intern(T node) {
+        expunge();
+        Ref ref = new Ref(node, cleared);
+        while (true) {
+            Ref pooled = pool.putIfAbsent(ref, ref);
+            if (pooled == null) return node;
+            @SuppressWarnings("unchecked")
+            T canonical = (T) pooled.get();
+            if (canonical != null) {
+                if (canonical != node) {
+                    (node instanceof String ? strings : nodes).increment();
+                    savedBytes.add(shallowBytes(node));
+                }
+                return canonical;
+            }
+            // Collected since the lookup
+            pool.remove(pooled, pooled);
+        }
+    }
+
+    /**
+     * Intern the input schemas of a tool set which did not pass the optimizer, e.g. one read from the store.
+     * @return The tool set with pooled schemas, or the tool set itself if the pool is disabled.
+     */
+    public ToolSetDto intern(ToolSetDto toolSet) {
+        if (!enabled || toolSet.tools() == null) return toolSet;
+        ToolDto[] tools = new ToolDto[toolSet.tools().length];
+        for (int i = 0; i < tools.length; i++) {
+            ToolDto tool = toolSet.tools()[i];
+            Object inputSchema = canonical(tool.inputSchema());
+            if (inputSchema == tool.inputSchema()) {
+                tools[i] = tool;
+            } else {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> pooled = (Map<String, Object>) inputSchema;
+                tools[i] = new ToolDto(tool.name(), tool.description(), tool.requestMethod(), tool.endpoint(), pooled);
+            }
+        }
+        return new ToolSetDto(toolSet.name(), toolSet.description(), tools);
+    }
+
+    // Helper: intern a tree bottom-up, nodes are copied only if one of their children is replaced
+    private Object canonical(Object node) {
+        if (node instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = null;
+            int i = 0;
+            for (Map.Entry<?, ?> e : map.entrySet()) {
+                Object value = canonical(e.getValue());
+                if (value != e.getValue() && copy == null) {
+                    copy = new LinkedHashMap<>();
+                    Iterator<? extends Map.Entry<?, ?>> it = map.entrySet().iterator();
+                    for (int j = 0; j < i; j++) {
+                        Map.Entry<?, ?> kept = it.next();
+                        copy.put(kept.getKey(), kept.getValue());
+                    }
+                }
+                if (copy != null) copy.put(e.getKey(), value);
+                i++;
+            }
+            return intern(copy == null ? map : copy);
+        }
+        if (node instanceof List<?> list) {
+            List<Object> copy = null;
+            for (int i = 0; i < list.size(); i++) {
+                Object item = canonical(list.get(i));
+                if (item != list.get(i) && copy == null) copy = new ArrayList<>(list.subList(0, i));
+                if (copy != null) copy.add(item);
+            }
+            return intern(copy == null ? list : copy);
+        }
+        if (node instanceof String s) return intern(s);
+        return node;
+    }
+
+    private void expunge() {
+        for (Reference<?> ref; (ref = cleared.poll()) != null; ) pool.remove(ref, ref);
+    }
+
+    /**
+     * @return Distinct nodes and strings in the pool, including collected ones which were not removed yet.
+     */
+    public int size() {
+        expunge();
+        return pool.size();
+    }
+
+    /**
+     * @return Nodes which were replaced by an equal pooled one since the start.
+     */
+    public long internedNodes() {
+        return nodes.sum();
+    }
+
+    /**
+     * @return Strings which were replaced by an equal pooled one since the start.
+     */
+    public long internedStrings() {
+        return strings.sum();
+    }
+
+    /**
+     * @return Estimated bytes of the nodes and strings replaced by a pooled one since the start.
+     */
+    public long savedBytes() {
+        return savedBytes.sum();
+    }
+
+    /**
+     * Estimated heap size of a node without its children, for a 64-bit JVM with compressed references.
+     */
+    public static long shallowBytes(Object node) {
+        // LinkedHashMap with its table and one entry per mapping
+        if (node instanceof Map<?, ?> map) return 72 + 44L * map.size();
+        // ArrayList with its array
+        if (node instanceof List<?> list) return 40 + 4L * list.size();
+        // String with its Latin-1 array
+        if (node instanceof String s) return 40 + s.length();
+        return 0;
+    }
+
+    /**
+     * Hash of a node with interned children: scalars by value, children by identity.
+     */
+    static int shapeHash(Object node) {
+        int h = node instanceof Map<?, ?> ? 1 : 2;
+        if (node instanceof Map<?, ?> map) {
+            for (Map.Entry<?, ?> e : map.entrySet()) h = 31 * (31 * h + e.getKey().hashCode()) + hash(e.getValue());
+        } else if (node instanceof List<?> list) {
+            for (Object item : list) h = 31 * h + hash(item);
+        } else {
+            h = Objects.hashCode(node);
+        }
+        return h;
+    }
+
+    /**
+     * Whether two nodes with interned children are equal, in constant time per entry.
+     */
+    static boolean sameShape(Object a, Object b) {
+        if (a instanceof Map<?, ?> ma && b instanceof Map<?, ?> mb) {
+            if (ma.size() != mb.size()) return false;
+            Iterator<? extends Map.Entry<?, ?>> ib = mb.entrySet().iterator();
+            for (Map.Entry<?, ?> ea : ma.entrySet()) {
+                Map.Entry<?, ?> eb = ib.next();
+                if (!ea.getKey().equals(eb.getKey()) || !same(ea.getValue(), eb.getValue())) return false;
+            }
+            return true;
+        }
+        if (a instanceof List<?> la && b instanceof List<?> lb) {
+            if (la.size() != lb.size()) return false;
+            for (int i = 0; i < la.size(); i++) if (!same(la.get(i), lb.get(i))) return false;
+            return true;
+        }
+        return !(a instanceof Map<?, ?> || a instanceof List<?> || b instanceof Map<?, ?> || b instanceof List<?>)
+                && Objects.equals(a, b);
+    }
+
+    private static int hash(Object value) {
+        return value instanceof Map<?, ?> || value instanceof List<?> ? System.identityHashCode(value)
+                : Objects.hashCode(value);
+    }
+
+    private static boolean same(Object a, Object b) {
+        return a instanceof Map<?, ?> || a instanceof List<?> ? a == b : Objects.equals(a, b);
+    }
+
+    // Weak key of a pooled node, which keeps its hash and compares the nodes it refers to by their shape
+    private static final class Ref extends WeakReference<Object> {
+        private final int hash;
+
+        private Ref(Object node, ReferenceQueue<Object> queue) {
+            super(node, queue);
+            this.hash = shapeHash(node);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Ref other) || other.hash != hash) return false;
+            Object a = get();
+            Object b = other.get();
+            return a != null && b != null && sameShape(a, b);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package de.thm.spec2tool.mapper;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates OpenAPI 3.0 specs of a given size, shaped like real APIs: resources with a GET, POST, PUT and DELETE each,
+ * path and query parameters, and request bodies referencing a deep graph of components.
+ * <p>
+ * The components form a chain {@code Entity0 -> Entity1 -> ... -> Entity<refDepth-1> -> Entity0}, so every body
+ * is cut by the cycle or by the maximum schema depth. Some bodies use an allOf, a oneOf or a chain of aliases instead.
+ * <p>
+ * Used by the warm-up on startup, the tests and the benchmarks.
+ */
+public final class SyntheticSpecs {
+
+    private static final String[] METHODS = {"get", "post", "put", "delete"};
+
+    private SyntheticSpecs() {
+    }
+
+    /**
+     * @param operations Number of operations.
+     * @param refDepth Number of components in the $ref chain, at least 1.
+     * @return The spec as it would be posted in {@code ToolSpecificationDto.spec}.
+     */
+    public static Map<String, Object> openApi(int operations, int refDepth) {
+        Map<String, Object> spec = new LinkedHashMap<>();
+        spec.put("openapi", "3.0.3");
+        spec.put("info", Map.of("title", "Synthetic API " + operations,
+                "description", "Generated spec with " + operations + " operations"));
+        spec.put("servers", List.of(Map.of("url", "https://synthetic.example.com/v1")));
+
+        Map<String, Object> paths = new LinkedHashMap<>();
+        for (int i = 0; i < operations; i++) {
+            int resource = i / METHODS.length;
+            String method = METHODS[i % METHODS.length];
+            @SuppressWarnings("unchecked")
+            Map<String, Object> item = (Map<String, Object>) paths.computeIfAbsent(
+                    "/resources" + resource + "/{id}", k -> new LinkedHashMap<>());
+            item.put(method, operation(i, resource, method, refDepth));
+        }
+        spec.put("paths", paths);
+        spec.put("components", Map.of("schemas", components(refDepth)));
+        return spec;
+    }
+
+    // Helper: one operation; GET and DELETE take query parameters, the others a body
+    private static Map<String, Object> operation(int i, int resource, String method, int refDepth) {
+        Map<String, Object> op = new LinkedHashMap<>();
+        op.put("operationId", method + "Resource" + resource);
+        op.put("summary", "Synthetic " + method + " of resource " + resource);
+
+        List<Object> parameters = new ArrayList<>();
+        parameters.add(Map.of("name", "id", "in", "path", "required", true,
+                "description", "Id of the resource", "schema", Map.of("type", "integer")));
+        if ("get".equals(method) || "delete".equals(method)) {
+            parameters.add(Map.of("name", "filter", "in", "query", "schema", Map.of("type", "string")));
+            parameters.add(Map.of("name", "limit", "in", "query", "schema", Map.of("type", "integer")));
+        } else {
+            String[] bodies = {"Entity" + (i % refDepth), "Page", "Choice", "Alias0"};
+            Map<String, Object> schema = Map.of("$ref", "#/components/schemas/" + bodies[i % bodies.length]);
+            op.put("requestBody", Map.of("required", true,
+                    "content", Map.of("application/json", Map.of("schema", schema))));
+        }
+        op.put("parameters", parameters);
+        op.put("responses", Map.of("200", Map.of("description", "OK")));
+        return op;
+    }
+
+    private static Map<String, Object> components(int refDepth) {
+        Map<String, Object> schemas = new LinkedHashMap<>();
+        for (int i = 0; i < refDepth; i++) {
+            Map<String, Object> properties = new LinkedHashMap<>();
+            properties.put("id", Map.of("type", "integer", "description", "Id of entity " + i));
+            properties.put("name", Map.of("type", "string", "description", "Name of entity " + i));
+            properties.put("tags", Map.of("type", "array", "items", Map.of("type", "string")));
+            properties.put("child", ref("Entity" + ((i + 1) % refDepth)));
+            schemas.put("Entity" + i, Map.of("type", "object", "required", List.of("id"), "properties", properties));
+        }
+        schemas.put("Page", Map.of("allOf", List.of(ref("Entity0"),
+                Map.of("type", "object", "properties", Map.of("total", Map.of("type", "integer"))))));
+        schemas.put("Choice", Map.of("oneOf", List.of(ref("Entity0"), ref("Entity" + (refDepth - 1)))));
+        for (int i = 0; i < refDepth; i++) {
+            schemas.put("Alias" + i, ref(i + 1 < refDepth ? "Alias" + (i + 1) : "Entity0"));
+        }
+        return schemas;
+    }
+
+    private static Map<String, Object> ref(String name) {
+        return Map.of("$ref", "#/components/schemas/" + name);
+    }
+}
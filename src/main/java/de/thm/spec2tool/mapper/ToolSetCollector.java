@@ -0,0 +1,47 @@
+package de.thm.spec2tool.mapper;
+
+import de.thm.spec2tool.dto.ToolDto;
+import de.thm.spec2tool.dto.ToolSetDto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sink which collects a converted tool set in memory.
+ */
+public class ToolSetCollector implements ToolSink {
+
+    private String name;
+    private String description;
+    private final List<ToolDto> tools = new ArrayList<>();
+    private final List<String> operationIds = new ArrayList<>();
+
+    @Override
+    public void header(String name, String description) {
+        this.name = name;
+        this.description = description;
+    }
+
+    @Override
+    public void tool(ToolDto tool) {
+        tool(null, null, tool);
+    }
+
+    @Override
+    public void tool(String pathKey, String operationId, ToolDto tool) {
+        tools.add(tool);
+        operationIds.add(operationId);
+    }
+
+    public ToolSetDto toToolSet() {
+        return new ToolSetDto(name, description, tools.toArray(ToolDto[]::new));
+    }
+
+    /**
+     * @return The operationId of every tool, in the order of {@link #toToolSet()}, null where the tool was passed
+     * without one.
+     */
+    public List<String> operationIds() {
+        return operationIds;
+    }
+}
@@ -0,0 +1,380 @@
+package de.thm.spec2tool.mapper;
+
+import de.thm.spec2tool.dto.ToolDto;
+import de.thm.spec2tool.dto.ToolSetDto;
+import de.thm.spec2tool.metrics.ConversionProfile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.*;
+
+/**
+ * Output stage between the mapper and the client, which shrinks the input schemas of converted tools.
+ * <ul>
+ *     <li>Filler descriptions ({@code "string"}, {@code "string (path)"}) and empty descriptions are dropped.</li>
+ *     <li>Every tool is kept within a budget of nesting depth, properties and estimated bytes. If a tool exceeds it,
+ *     its schema is cut at a lower depth, down to the parameters and the top level of the body, where nodes keep
+ *     their type and description only. Properties beyond the budget are dropped in order, if it still does not fit; required properties are
+ *     dropped last.</li>
+ *     <li>Identical subtrees of all tools in a tool set are interned, so the tool set holds every distinct subtree
+ *     only once. With the {@link SchemaPool}, subtrees and strings are shared with all other tool sets as well.
+ *     The JSON output is unchanged by this, input schemas stay self-contained.</li>
+ * </ul>
+ * Schema nodes of the mapper may be shared between tools and are never modified. A node is copied only if
+ * something in it changes; the resulting nodes are shared as well and must not be modified either.
+ */
+@Component
+public class ToolSetOptimizer {
+
+    private static final Set<String> FILLER = Set.of("string", "string (path)");
+    // Depth of the parameters and the top-level fields of the body, which are never cut
+    private static final int MIN_DEPTH = 2;
+
+    private final boolean dropFiller;
+    private final int maxDepth;
+    private final int maxProperties;
+    private final long maxBytes;
+    private final SchemaPool schemaPool;
+
+    Logger logger = LoggerFactory.getLogger(ToolSetOptimizer.class);
+
+    /**
+     * @param dropFiller Whether filler and empty descriptions are dropped.
+     * @param maxDepth Nesting depth of a tool's input schema, 0 for no limit.
+     * @param maxProperties Properties in a tool's input schema, 0 for no limit.
+     * @param maxBytes Estimated size of a tool's input schema as compact JSON, 0 for no limit.
+     * @param schemaPool Pool shared by all tool sets, if enabled.
+     */
+    public ToolSetOptimizer(@Value("${spec2tool.output.drop-filler-descriptions:true}") boolean dropFiller,
+                            @Value("${spec2tool.output.max-depth:20}") int maxDepth,
+                            @Value("${spec2tool.output.max-properties:1000}") int maxProperties,
+                            @Value("${spec2tool.output.max-bytes:256KB}") DataSize maxBytes,
+                            SchemaPool schemaPool) {
+        this.dropFiller = dropFiller;
+        this.maxDepth = maxDepth > 0 ? Math.max(maxDepth, MIN_DEPTH) : Integer.MAX_VALUE;
+        this.maxProperties = maxProperties > 0 ? maxProperties : Integer.MAX_VALUE;
+        this.maxBytes = maxBytes.toBytes() > 0 ? maxBytes.toBytes() : Long.MAX_VALUE;
+        this.schemaPool = schemaPool;
+    }
+
+    /**
+     * @return Identifies the settings which affect the optimized tool sets.
+     */
+    public String revision() {
+        return Integer.toHexString(Objects.hash(dropFiller, maxDepth, maxProperties, maxBytes));
+    }
+
+    /**
+     * Optimize a tool set as a whole.
+     * @param profile Receives the duration of the 'optimize' stage and the pruned nodes.
+     */
+    public ToolSetDto optimize(ToolSetDto toolSet, ConversionProfile profile) {
+        ToolSetCollector collector = new ToolSetCollector();
+        ToolSink sink = sink(collector, profile);
+        sink.header(toolSet.name(), toolSet.description());
+        for (ToolDto tool : toolSet.tools()) sink.tool(tool);
+        return collector.toToolSet();
+    }
+
+    /**
+     * Share the subtrees of a tool set which did not pass this optimizer, e.g. one read from the store, with the
+     * other tool sets in the {@link SchemaPool}.
+     */
+    public ToolSetDto intern(ToolSetDto toolSet) {
+        return schemaPool.intern(toolSet);
+    }
+
+    /**
+     * Optimize every tool on its way into a sink. Subtrees are interned across all tools passed through the
+     * returned sink, which is therefore meant for a single tool set.
+     * @param profile Receives the duration of the 'optimize' stage and the pruned nodes.
+     */
+    public ToolSink sink(ToolSink sink, ConversionProfile profile) {
+        Interner interner = new Interner(schemaPool.isEnabled() ? schemaPool : null);
+        return new ToolSink() {
+            @Override
+            public void header(String name, String description) {
+                sink.header(name, description);
+            }
+
+            @Override
+            public void tool(ToolDto tool) {
+                sink.tool(optimize(tool, interner, profile));
+            }
+
+            @Override
+            public void tool(String pathKey, ToolDto tool) {
+                sink.tool(pathKey, optimize(tool, interner, profile));
+            }
+
+            @Override
+            public void tool(String pathKey, String operationId, ToolDto tool) {
+                sink.tool(pathKey, operationId, optimize(tool, interner, profile));
+            }
+        };
+    }
+
+    private ToolDto optimize(ToolDto tool, Interner interner, ConversionProfile profile) {
+        if (tool.inputSchema() == null) return tool;
+        long start = System.nanoTime();
+        int internedBefore = interner.hits;
+
+        // Most tools fit their budget in one pass; the others are cut again at the deepest level at which they fit
+        Pass pass = new Pass(maxDepth, Integer.MAX_VALUE, interner);
+        Object inputSchema = pass.node(tool.inputSchema(), 0);
+        Stats stats = pass.stats;
+        if (stats.properties(Integer.MAX_VALUE) > maxProperties || stats.bytes(Integer.MAX_VALUE) > maxBytes) {
+            int depth = stats.deepest;
+            while (depth > MIN_DEPTH && (stats.properties(depth) > maxProperties || stats.bytes(depth) > maxBytes)) depth--;
+            pass = new Pass(depth, stats.properties(depth) > maxProperties ? maxProperties : Integer.MAX_VALUE, interner);
+            inputSchema = pass.node(tool.inputSchema(), 0);
+            logger.info("Pruned tool '{}' to depth {}: {} nodes cut, {} properties dropped ({} of {} properties, ~{} bytes)",
+                    tool.name(), depth, pass.cuts, pass.dropped, pass.stats.properties(Integer.MAX_VALUE),
+                    stats.properties(Integer.MAX_VALUE), pass.stats.bytes(Integer.MAX_VALUE));
+            if (pass.stats.bytes(Integer.MAX_VALUE) > maxBytes) {
+                logger.warn("Tool '{}' still has ~{} bytes after pruning, more than {}", tool.name(),
+                        pass.stats.bytes(Integer.MAX_VALUE), maxBytes);
+            }
+        } else if (pass.cuts > 0) {
+            logger.info("Pruned tool '{}' to depth {}: {} nodes cut", tool.name(), maxDepth, pass.cuts);
+        }
+
+        profile.add("optimize", System.nanoTime() - start);
+        if (pass.descriptions > 0) profile.prune("description", pass.descriptions);
+        if (pass.cuts > 0) profile.prune("depth", pass.cuts);
+        if (pass.dropped > 0) profile.prune("properties", pass.dropped);
+        if (interner.hits > internedBefore) profile.intern(interner.hits - internedBefore);
+
+        if (inputSchema == tool.inputSchema()) return tool;
+        @SuppressWarnings("unchecked")
+        Map<String, Object> optimized = (Map<String, Object>) inputSchema;
+        return new ToolDto(tool.name(), tool.description(), tool.requestMethod(), tool.endpoint(), optimized);
+    }
+
+    private static long scalarBytes(Object value) {
+        if (value instanceof String s) return s.length() + 2;
+        if (value instanceof List<?> list) {
+            long bytes = 2;
+            for (Object item : list) bytes += scalarBytes(item) + 1;
+            return bytes;
+        }
+        return String.valueOf(value).length();
+    }
+
+    private static boolean hasChildren(Map<?, ?> node) {
+        return node.get("properties") instanceof Map<?, ?> p && !p.isEmpty() || node.get("items") != null
+                || node.get("oneOf") instanceof List<?> o && !o.isEmpty();
+    }
+
+    private static boolean isFiller(Object description) {
+        return description instanceof String s && (s.isBlank() || FILLER.contains(s));
+    }
+
+    // Properties and estimated bytes of compact JSON of a tool's schema by depth, grown on demand
+    private static final class Stats {
+        private long[] properties = new long[8];
+        private long[] bytes = new long[8];
+        private int deepest;
+
+        private void add(int depth, long bytes, boolean property) {
+            if (depth >= this.bytes.length) {
+                this.properties = Arrays.copyOf(this.properties, depth * 2);
+                this.bytes = Arrays.copyOf(this.bytes, depth * 2);
+            }
+            deepest = Math.max(deepest, depth);
+            this.bytes[depth] += bytes;
+            if (property) this.properties[depth]++;
+        }
+
+        // Properties and bytes of the nodes kept when the schema is cut at the given depth
+        private long properties(int depth) {
+            long sum = 0;
+            for (int d = 0; d <= Math.min(depth, deepest); d++) sum += properties[d];
+            return sum;
+        }
+
+        private long bytes(int depth) {
+            long sum = 0;
+            for (int d = 0; d <= Math.min(depth, deepest); d++) sum += bytes[d];
+            return sum;
+        }
+    }
+
+    // One copy-on-write pass over the schema of a tool, which measures its result on the way
+    private final class Pass {
+        private final int depth;
+        private final Interner interner;
+        private final Stats stats = new Stats();
+        private int propertyBudget;
+        private int descriptions;
+        private int cuts;
+        private int dropped;
+
+        private Pass(int depth, int propertyBudget, Interner interner) {
+            this.depth = depth;
+            this.propertyBudget = propertyBudget;
+            this.interner = interner;
+        }
+
+        private Object node(Object value, int level) {
+            if (value instanceof Map<?, ?> map) return interner.intern(map(map, level));
+            if (value instanceof List<?> list) return interner.intern(list(list, level));
+            stats.add(level, scalarBytes(value) + 1, false);
+            return interner.string(value);
+        }
+
+        private Map<?, ?> map(Map<?, ?> map, int level) {
+            boolean cut = level >= depth && hasChildren(map);
+            if (cut) cuts++;
+            long bytes = 2;
+            Map<Object, Object> copy = null;
+            Object props = map.get("properties");
+            int i = 0;
+            for (Map.Entry<?, ?> e : map.entrySet()) {
+                Object k = e.getKey();
+                Object v = e.getValue();
+                Object result;
+                if (cut && !"type".equals(k) && !"description".equals(k)) {
+                    result = null;
+                } else if (dropFiller && "description".equals(k) && isFiller(v)) {
+                    descriptions++;
+                    result = null;
+                } else if ("properties".equals(k) && v instanceof Map<?, ?> p) {
+                    result = props = interner.intern(properties(p, map.get("required"), level + 1));
+                    bytes += 2;
+                } else if ("required".equals(k) && v instanceof List<?> required) {
+                    result = interner.intern(required(required, props));
+                    bytes += scalarBytes(result);
+                } else if (v instanceof Map<?, ?> || v instanceof List<?> && "oneOf".equals(k)) {
+                    result = node(v, level + 1);
+                } else {
+                    result = interner.string(v);
+                    bytes += scalarBytes(v);
+                }
+                if (result != null) bytes += k.toString().length() + 4;
+                if (result != v && copy == null) copy = copyOf(map, i);
+                if (copy != null && result != null) copy.put(k, result);
+                i++;
+            }
+            if (cut && !map.containsKey("type")) {
+                if (copy == null) copy = copyOf(map, map.size());
+                copy.put("type", "object");
+                bytes += 15;
+            }
+            stats.add(level, bytes, false);
+            return copy == null ? map : copy;
+        }
+
+        private Map<?, ?> properties(Map<?, ?> props, Object required, int level) {
+            // Budget reserved for the required properties which are still to come
+            Set<?> names = required instanceof List<?> list ? new HashSet<>(list) : Set.of();
+            int reserved = 0;
+            for (Object name : props.keySet()) if (names.contains(name)) reserved++;
+            Map<Object, Object> copy = null;
+            int i = 0;
+            for (Map.Entry<?, ?> e : props.entrySet()) {
+                Object result = null;
+                boolean isRequired = names.contains(e.getKey());
+                if (isRequired) reserved--;
+                if (propertyBudget > (isRequired ? 0 : reserved)) {
+                    propertyBudget--;
+                    stats.add(level, e.getKey().toString().length() + 4, true);
+                    result = node(e.getValue(), level);
+                } else {
+                    dropped++;
+                }
+                if (result != e.getValue() && copy == null) copy = copyOf(props, i);
+                if (copy != null && result != null) copy.put(e.getKey(), result);
+                i++;
+            }
+            return copy == null ? props : copy;
+        }
+
+        // Helper: required names whose property was not dropped
+        private List<?> required(List<?> required, Object props) {
+            if (!(props instanceof Map<?, ?> p)) return required;
+            List<Object> kept = new ArrayList<>();
+            for (Object name : required) if (p.containsKey(name)) kept.add(name);
+            return kept.size() == required.size() ? required : kept;
+        }
+
+        private List<?> list(List<?> list, int level) {
+            stats.add(level, 2 + list.size(), false);
+            List<Object> copy = null;
+            for (int i = 0; i < list.size(); i++) {
+                Object result = node(list.get(i), level);
+                if (result != list.get(i) && copy == null) copy = new ArrayList<>(list.subList(0, i));
+                if (copy != null) copy.add(result);
+            }
+            return copy == null ? list : copy;
+        }
+
+        // Helper: a copy of the first entries of a map, to be continued with changed values
+        private static Map<Object, Object> copyOf(Map<?, ?> map, int entries) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            Iterator<? extends Map.Entry<?, ?>> it = map.entrySet().iterator();
+            for (int i = 0; i < entries; i++) {
+                Map.Entry<?, ?> e = it.next();
+                copy.put(e.getKey(), e.getValue());
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * Pool of the distinct subtrees of a tool set, or a view of the {@link SchemaPool} shared by all tool sets.
+     * Children are interned before their parent, so two nodes are equal if their scalars are equal and their
+     * children are the same instances, which is checked in constant time per entry.
+     */
+    private static final class Interner {
+        private final SchemaPool shared;
+        private final Map<Shape, Object> pool = new HashMap<>();
+        private int hits;
+
+        private Interner(SchemaPool shared) {
+            this.shared = shared;
+        }
+
+        private <T> T intern(T node) {
+            T pooled;
+            if (shared != null) {
+                pooled = shared.intern(node);
+            } else {
+                @SuppressWarnings("unchecked")
+                T local = (T) pool.putIfAbsent(new Shape(node), node);
+                pooled = local == null ? node : local;
+            }
+            if (pooled != node) hits++;
+            return pooled;
+        }
+
+        // Strings are pooled across tool sets only, within a tool set most of them are shared by the parser already
+        private Object string(Object value) {
+            return shared != null && value instanceof String s ? shared.intern(s) : value;
+        }
+    }
+
+    // Shallow key of a map or list: scalars by value, nested maps and lists by identity
+    private static final class Shape {
+        private final Object node;
+        private final int hash;
+
+        private Shape(Object node) {
+            this.node = node;
+            this.hash = SchemaPool.shapeHash(node);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Shape other && other.hash == hash && SchemaPool.sameShape(node, other.node);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package de.thm.spec2tool.mapper;
+
+import de.thm.spec2tool.dto.ToolDto;
+
+/**
+ * Receives the result of a conversion piece by piece. The header is passed first, followed by every tool in the
+ * order of the spec, as soon as it is converted.
+ */
+public interface ToolSink {
+
+    void header(String name, String description);
+
+    void tool(ToolDto tool);
+
+    /**
+     * Receive a tool together with the key of the path it was converted from.
+     * Sinks which do not care about the path just receive the tool.
+     */
+    default void tool(String pathKey, ToolDto tool) {
+        tool(tool);
+    }
+
+    /**
+     * Receive a tool together with the key of its path and the operationId of its operation, which may be null.
+     * Sinks which do not care about the operationId just receive the path and the tool.
+     */
+    default void tool(String pathKey, String operationId, ToolDto tool) {
+        tool(pathKey, tool);
+    }
+}
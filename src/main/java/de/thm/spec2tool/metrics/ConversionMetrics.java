@@ -0,0 +1,119 @@
+package de.thm.spec2tool.metrics;
+
+import de.thm.spec2tool.cache.ConversionCache;
+import de.thm.spec2tool.cache.ToolRegistry;
+import de.thm.spec2tool.cache.ToolSetStore;
+import de.thm.spec2tool.mapper.ConversionLimits;
+import de.thm.spec2tool.mapper.SchemaPool;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the profiles of conversions and the state of the conversion cache to Micrometer.
+ */
+@Component
+public class ConversionMetrics {
+
+    private final MeterRegistry registry;
+    private final DistributionSummary specSize;
+    private final DistributionSummary operations;
+    private final DistributionSummary tools;
+    private final Counter interned;
+
+    public ConversionMetrics(MeterRegistry registry, ConversionCache conversionCache, ToolSetStore toolSetStore,
+                             ToolRegistry toolRegistry, SchemaPool schemaPool) {
+        this.registry = registry;
+        this.specSize = DistributionSummary.builder("spec2tool.spec.size").baseUnit("bytes")
+                .description("Size of the submitted specifications").publishPercentileHistogram().register(registry);
+        this.operations = DistributionSummary.builder("spec2tool.spec.operations")
+                .description("Operations per converted specification").publishPercentileHistogram().register(registry);
+        this.tools = DistributionSummary.builder("spec2tool.toolset.tools")
+                .description("Tools per converted tool set").publishPercentileHistogram().register(registry);
+        this.interned = Counter.builder("spec2tool.output.interned")
+                .description("Subtrees of converted tool sets shared with an identical subtree").register(registry);
+
+        FunctionCounter.builder("spec2tool.cache.hits", conversionCache, ConversionCache::hits).register(registry);
+        FunctionCounter.builder("spec2tool.cache.misses", conversionCache, ConversionCache::misses).register(registry);
+        FunctionCounter.builder("spec2tool.cache.evictions", conversionCache, ConversionCache::evictions).register(registry);
+        Gauge.builder("spec2tool.cache.size", conversionCache, ConversionCache::size).register(registry);
+        Gauge.builder("spec2tool.store.size", toolSetStore, ToolSetStore::size).register(registry);
+        Gauge.builder("spec2tool.store.bytes", toolSetStore, ToolSetStore::bytes).baseUnit("bytes").register(registry);
+        Gauge.builder("spec2tool.registry.size", toolRegistry, ToolRegistry::size).register(registry);
+        Gauge.builder("spec2tool.intern.pool.size", schemaPool, SchemaPool::size)
+                .description("Distinct schema nodes and strings in the pool shared by all tool sets").register(registry);
+        FunctionCounter.builder("spec2tool.intern.hits", schemaPool, SchemaPool::internedNodes).tag("type", "node")
+                .description("Schema nodes and strings replaced by an identical pooled one").register(registry);
+        FunctionCounter.builder("spec2tool.intern.hits", schemaPool, SchemaPool::internedStrings).tag("type", "string")
+                .description("Schema nodes and strings replaced by an identical pooled one").register(registry);
+        FunctionCounter.builder("spec2tool.intern.saved", schemaPool, SchemaPool::savedBytes).baseUnit("bytes")
+                .description("Estimated bytes of the schema nodes replaced by a pooled one").register(registry);
+        // Every limit is exported from the start, not only after its first violation
+        for (String limit : List.of(ConversionLimits.BODY_SIZE, ConversionLimits.NESTING_DEPTH, ConversionLimits.OPERATIONS,
+                ConversionLimits.REF_STEPS, ConversionLimits.TIME)) {
+            limitCounter(limit);
+        }
+    }
+
+    /**
+     * Record the stages and sizes of a finished conversion.
+     */
+    public void record(ConversionProfile profile) {
+        Timer.builder("spec2tool.conversion")
+                .description("Duration of a whole conversion")
+                .tag("cache", profile.isCacheHit() ? "hit" : "miss")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(profile.elapsed(), TimeUnit.NANOSECONDS);
+        profile.stages().forEach((stage, nanos) -> Timer.builder("spec2tool.conversion.stage")
+                .description("Duration of a stage of the conversion")
+                .tag("stage", stage)
+                .tag("cache", profile.isCacheHit() ? "hit" : "miss")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS));
+        profile.pruned().forEach((reason, count) -> Counter.builder("spec2tool.output.pruned")
+                .description("Nodes removed from the input schemas of converted tools")
+                .tag("reason", reason)
+                .register(registry)
+                .increment(count));
+        if (profile.getInterned() > 0) interned.increment(profile.getInterned());
+        if (profile.getOperations() >= 0) operations.record(profile.getOperations());
+        if (profile.getTools() >= 0) tools.record(profile.getTools());
+    }
+
+    /**
+     * Count a request or conversion which was rejected because it exceeded a limit.
+     * @param limit Name of the limit, e.g. 'operations'.
+     */
+    public void recordLimitExceeded(String limit) {
+        limitCounter(limit).increment();
+    }
+
+    private Counter limitCounter(String limit) {
+        return Counter.builder("spec2tool.limits.exceeded")
+                .description("Requests and conversions rejected because they exceeded a limit")
+                .tag("limit", limit)
+                .register(registry);
+    }
+
+    public void recordSpecSize(long bytes) {
+        specSize.record(bytes);
+    }
+
+    public void recordResponseSize(String uri, long bytes) {
+        DistributionSummary.builder("spec2tool.response.size").baseUnit("bytes")
+                .description("Bytes written for conversion responses")
+                .tag("uri", uri)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(bytes);
+    }
+}
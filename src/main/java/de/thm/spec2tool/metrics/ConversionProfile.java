@@ -0,0 +1,123 @@
+package de.thm.spec2tool.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.function.Supplier;
+
+/**
+ * Timings and sizes of a single conversion. Stages are kept in the order they were first recorded,
+ * a stage recorded more than once (e.g. per tool) is summed up.
+ */
+public class ConversionProfile {
+
+    private final long start = System.nanoTime();
+    private final Map<String, Long> stages = new LinkedHashMap<>();
+    private final Map<String, Integer> pruned = new LinkedHashMap<>();
+    private int interned;
+    private String key;
+    private boolean cacheHit;
+    private int operations = -1;
+    private int tools = -1;
+
+    /**
+     * Run the work and add its duration to the stage.
+     * @param stage Name of the stage, e.g. 'parse'.
+     * @param work Work of the stage.
+     * @return Result of the work.
+     */
+    public <T> T time(String stage, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            add(stage, System.nanoTime() - start);
+        }
+    }
+
+    public synchronized void add(String stage, long nanos) {
+        stages.merge(stage, nanos, Long::sum);
+    }
+
+    public synchronized Map<String, Long> stages() {
+        return new LinkedHashMap<>(stages);
+    }
+
+    /**
+     * @return Nanoseconds since this profile was created.
+     */
+    public long elapsed() {
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Count nodes removed from the tool set by the output stage.
+     * @param reason Why they were removed, e.g. 'depth'.
+     */
+    public synchronized void prune(String reason, int count) {
+        pruned.merge(reason, count, Integer::sum);
+    }
+
+    public synchronized Map<String, Integer> pruned() {
+        return new LinkedHashMap<>(pruned);
+    }
+
+    /**
+     * Count subtrees of the tool set which were replaced by an identical one.
+     */
+    public synchronized void intern(int count) {
+        interned += count;
+    }
+
+    public synchronized int getInterned() {
+        return interned;
+    }
+
+    /**
+     * @return Hash of the converted specification, or null if it was not hashed yet.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public boolean isCacheHit() {
+        return cacheHit;
+    }
+
+    public void setCacheHit(boolean cacheHit) {
+        this.cacheHit = cacheHit;
+    }
+
+    public int getOperations() {
+        return operations;
+    }
+
+    public void setOperations(int operations) {
+        this.operations = operations;
+    }
+
+    public int getTools() {
+        return tools;
+    }
+
+    public void setTools(int tools) {
+        this.tools = tools;
+    }
+
+    /**
+     * Format the stages as value of a 'Server-Timing' header, e.g. 'parse;dur=12.3, build;dur=4.1'.
+     */
+    public String toServerTiming() {
+        StringJoiner joiner = new StringJoiner(", ");
+        stages().forEach((stage, nanos) -> joiner.add(String.format(Locale.ROOT, "%s;dur=%.3f", stage, nanos / 1e6)));
+        joiner.add(String.format(Locale.ROOT, "total;dur=%.3f", elapsed() / 1e6));
+        joiner.add("cache;desc=" + (cacheHit ? "hit" : "miss"));
+        pruned().forEach((reason, count) -> joiner.add("pruned-" + reason + ";desc=" + count));
+        return joiner.toString();
+    }
+}
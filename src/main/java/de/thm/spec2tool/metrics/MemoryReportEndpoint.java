@@ -0,0 +1,78 @@
+package de.thm.spec2tool.metrics;
+
+import de.thm.spec2tool.cache.ConversionCache;
+import de.thm.spec2tool.cache.ToolRegistry;
+import de.thm.spec2tool.dto.MemoryReportDto;
+import de.thm.spec2tool.dto.ToolDto;
+import de.thm.spec2tool.dto.ToolSetDto;
+import de.thm.spec2tool.mapper.SchemaPool;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Actuator endpoint 'memory': how much memory the resident tool sets take and how much sharing their schema subtrees
+ * saves. Sizes are estimated from the shape of the schemas, see {@link SchemaPool#shallowBytes(Object)}; map keys
+ * are not counted, as the parser shares them already.
+ */
+@Component
+@Endpoint(id = "memory")
+public class MemoryReportEndpoint {
+
+    private final ConversionCache conversionCache;
+    private final ToolRegistry toolRegistry;
+    private final SchemaPool schemaPool;
+
+    public MemoryReportEndpoint(ConversionCache conversionCache, ToolRegistry toolRegistry, SchemaPool schemaPool) {
+        this.conversionCache = conversionCache;
+        this.toolRegistry = toolRegistry;
+        this.schemaPool = schemaPool;
+    }
+
+    @ReadOperation
+    public MemoryReportDto report() {
+        Set<ToolSetDto> toolSets = Collections.newSetFromMap(new IdentityHashMap<>());
+        toolSets.addAll(conversionCache.values());
+        toolSets.addAll(toolRegistry.toolSets());
+
+        // Logical size of every distinct node, so shared subtrees are walked once
+        Map<Object, Long> nodes = new IdentityHashMap<>();
+        long tools = 0;
+        long logicalBytes = 0;
+        for (ToolSetDto toolSet : toolSets) {
+            if (toolSet.tools() == null) continue;
+            for (ToolDto tool : toolSet.tools()) {
+                tools++;
+                logicalBytes += logicalBytes(tool.inputSchema(), nodes);
+            }
+        }
+        long residentBytes = 0;
+        for (Object node : nodes.keySet()) residentBytes += SchemaPool.shallowBytes(node);
+
+        Runtime runtime = Runtime.getRuntime();
+        return new MemoryReportDto(toolSets.size(), tools, nodes.size(), logicalBytes, residentBytes,
+                logicalBytes - residentBytes, schemaPool.isEnabled(), schemaPool.size(), schemaPool.savedBytes(),
+                runtime.totalMemory() - runtime.freeMemory(), runtime.maxMemory());
+    }
+
+    // Helper: size of a subtree as if none of its nodes were shared
+    private static long logicalBytes(Object node, Map<Object, Long> nodes) {
+        if (!(node instanceof Map<?, ?> || node instanceof List<?> || node instanceof String)) return 0;
+        Long known = nodes.get(node);
+        if (known != null) return known;
+        long bytes = SchemaPool.shallowBytes(node);
+        if (node instanceof Map<?, ?> map) {
+            for (Object value : map.values()) bytes += logicalBytes(value, nodes);
+        } else if (node instanceof List<?> list) {
+            for (Object item : list) bytes += logicalBytes(item, nodes);
+        }
+        nodes.put(node, bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,72 @@
+package de.thm.spec2tool.security;
+
+import de.thm.spec2tool.cache.BoundedCache;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+
+/**
+ * Decoder which keeps validated tokens, so a client reusing its token is not verified again on every request.
+ * Tokens are keyed by their SHA-256 and kept until they expire, or for the time to live, whatever comes first.
+ * Tokens which fail validation are never cached.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+    private final BoundedCache<String, Jwt> cache;
+
+    /**
+     * @param delegate Decoder which verifies the tokens.
+     * @param maxEntries Number of validated tokens kept, 0 to disable the cache.
+     * @param ttl Time after which a validated token is verified again.
+     */
+    public CachingJwtDecoder(JwtDecoder delegate, int maxEntries, Duration ttl) {
+        this.delegate = delegate;
+        this.cache = new BoundedCache<>(maxEntries, ttl);
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        String key = hash(token);
+        Jwt jwt = cache.get(key);
+        if (jwt != null) return jwt;
+
+        jwt = delegate.decode(token);
+        Instant expiresAt = jwt.getExpiresAt();
+        if (expiresAt == null) {
+            cache.put(key, jwt);
+        } else {
+            cache.put(key, jwt, Duration.between(Instant.now(), expiresAt));
+        }
+        return jwt;
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public long hits() {
+        return cache.hits();
+    }
+
+    public long misses() {
+        return cache.misses();
+    }
+
+    // Helper: fixed size key, so the cache does not hold the raw tokens as keys
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package de.thm.spec2tool.security;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.JWKSourceBuilder;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * Decoder of the resource server. The JWK set is fetched in the background once the application is ready and refreshed ahead of its
+ * expiry, so a request only waits for the identity provider if a token is signed with a key it has not seen yet.
+ * Validated tokens are cached by {@link CachingJwtDecoder}.
+ */
+@Configuration
+public class JwtDecoderConfig {
+
+    // Time before the expiry of the JWK set at which it is refreshed in the background
+    private static final Duration REFRESH_AHEAD = Duration.ofSeconds(30);
+
+    Logger logger = LoggerFactory.getLogger(JwtDecoderConfig.class);
+
+    /**
+     * @param ttl Time after which the JWK set is fetched again. If the identity provider is down by then,
+     *            the known keys are used for the same time again.
+     */
+    @Bean
+    public JWKSource<SecurityContext> jwkSource(
+            @Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}") String jwkSetUri,
+            @Value("${spec2tool.jwt.jwk-set.ttl:5m}") Duration ttl) throws MalformedURLException {
+        long ttlMillis = Math.max(ttl.toMillis(), 2 * REFRESH_AHEAD.toMillis());
+        JWKSource<SecurityContext> jwkSource = JWKSourceBuilder.<SecurityContext>create(URI.create(jwkSetUri).toURL())
+                .cache(ttlMillis, JWKSourceBuilder.DEFAULT_CACHE_REFRESH_TIMEOUT)
+                .refreshAheadCache(REFRESH_AHEAD.toMillis(), true)
+                .retrying(true)
+                .outageTolerant(ttlMillis)
+                .build();
+        return jwkSource;
+    }
+
+    /**
+     * Fetch the JWK set once the application is ready, on the task executor of Spring. Not on the startup path:
+     * an unreachable identity provider must not keep the service from starting.
+     */
+    @Bean
+    public ApplicationListener<ApplicationReadyEvent> jwkPrefetch(
+            JWKSource<SecurityContext> jwkSource,
+            @Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}") String jwkSetUri,
+            @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor) {
+        return event -> taskExecutor.execute(() -> prefetch(jwkSource, jwkSetUri));
+    }
+
+    @Bean
+    public CachingJwtDecoder jwtDecoder(JWKSource<SecurityContext> jwkSource,
+                                        @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri:}") String issuerUri,
+                                        @Value("${spec2tool.jwt.cache.max-entries:10000}") int maxEntries,
+                                        @Value("${spec2tool.jwt.cache.ttl:5m}") Duration ttl,
+                                        MeterRegistry registry) {
+        DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+        processor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwkSource));
+        // Claims are validated by Spring, like in the decoder Spring Boot would create
+        processor.setJWTClaimsSetVerifier((claims, context) -> {});
+        NimbusJwtDecoder nimbusJwtDecoder = new NimbusJwtDecoder(processor);
+        nimbusJwtDecoder.setJwtValidator(issuerUri.isBlank() ? JwtValidators.createDefault()
+                : JwtValidators.createDefaultWithIssuer(issuerUri));
+
+        CachingJwtDecoder decoder = new CachingJwtDecoder(nimbusJwtDecoder, maxEntries, ttl);
+        FunctionCounter.builder("spec2tool.jwt.cache.hits", decoder, CachingJwtDecoder::hits).register(registry);
+        FunctionCounter.builder("spec2tool.jwt.cache.misses", decoder, CachingJwtDecoder::misses).register(registry);
+        Gauge.builder("spec2tool.jwt.cache.size", decoder, CachingJwtDecoder::size).register(registry);
+        return decoder;
+    }
+
+    private void prefetch(JWKSource<SecurityContext> jwkSource, String jwkSetUri) {
+        try {
+            int keys = jwkSource.get(new JWKSelector(new JWKMatcher.Builder().build()), null).size();
+            logger.info("Fetched {} keys from {}", keys, jwkSetUri);
+        } catch (KeySourceException | RuntimeException e) {
+            logger.warn("Cannot fetch JWK set from {}, trying again on the first request: {}", jwkSetUri, e.getMessage());
+        }
+    }
+}
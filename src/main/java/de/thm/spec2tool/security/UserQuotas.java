@@ -0,0 +1,258 @@
+package de.thm.spec2tool.security;
+
+import de.thm.spec2tool.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulkhead per user, so a single client cannot occupy the conversion threads of everyone else. Each user may run a
+ * limited number of conversions at the same time, and start a limited number of conversions per second with a burst.
+ * <p>
+ * Nothing here takes a lock: users are looked up in a {@link ConcurrentHashMap}, running conversions are counted with
+ * an atomic counter, and the rate is a token bucket kept as a single timestamp which is advanced by compare-and-set.
+ * An idle quota is dropped only after its counter was set to a mark by compare-and-set, which no conversion can start
+ * on, so a thread still holding the dropped quota retries with the new one instead of exceeding the limits.
+ * A value of 0 disables a limit.
+ * <p>
+ * The meters are tagged with a bucket of users by the hash of their name, so a single heavy user stands out without
+ * exporting user names, and the number of series stays fixed however many users there are. The bucket of a user is
+ * logged with each rejection.
+ */
+@Component
+public class UserQuotas {
+
+    static final String ANONYMOUS = "anonymous";
+
+    // Time after which a client rejected for too many running conversions should try again
+    private static final Duration CONCURRENCY_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final int maxConcurrent;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int maxUsers;
+
+    private final ConcurrentHashMap<String, Quota> quotas = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final Bucket[] buckets;
+
+    Logger logger = LoggerFactory.getLogger(UserQuotas.class);
+
+    /**
+     * @param maxConcurrent Conversions a user may run at the same time.
+     * @param rate Conversions a user may start per second on average.
+     * @param burst Conversions a user may start at once after being idle.
+     * @param maxUsers Users tracked before the idle ones are dropped.
+     * @param userBuckets Buckets the users are hashed into for the meters.
+     */
+    public UserQuotas(@Value("${spec2tool.quotas.max-concurrent:4}") int maxConcurrent,
+                      @Value("${spec2tool.quotas.rate:10}") double rate,
+                      @Value("${spec2tool.quotas.burst:20}") int burst,
+                      @Value("${spec2tool.quotas.max-users:10000}") int maxUsers,
+                      @Value("${spec2tool.quotas.user-buckets:16}") int userBuckets,
+                      MeterRegistry registry) {
+        this.maxConcurrent = maxConcurrent;
+        this.intervalNanos = rate > 0 ? (long) (1_000_000_000L / rate) : 0;
+        this.burstNanos = intervalNanos * Math.max(1, burst);
+        this.maxUsers = maxUsers;
+
+        this.buckets = new Bucket[Math.max(1, userBuckets)];
+        for (int i = 0; i < buckets.length; i++) buckets[i] = new Bucket(Integer.toString(i), registry);
+        Gauge.builder("spec2tool.quota.users", quotas, ConcurrentHashMap::size)
+                .description("Users whose quota is tracked").register(registry);
+    }
+
+    /**
+     * Start a single conversion for a user.
+     * @see #acquire(String, int)
+     */
+    public Permit acquire(String user) {
+        return acquire(user, 1);
+    }
+
+    /**
+     * Start conversions for a user. The permit occupies one of the concurrent conversions of the user until it is
+     * closed, however many conversions it covers, while each conversion counts against the rate.
+     * @param user Name of the user, null for tokens without name.
+     * @param conversions Conversions covered by the permit, e.g. the items of a batch.
+     * @return Permit which must be closed once the conversions finished.
+     * @throws TooManyRequestsException If the user runs too many conversions or starts them too fast.
+     */
+    public Permit acquire(String user, int conversions) {
+        String name = user == null || user.isBlank() ? ANONYMOUS : user;
+        Quota quota = quotas.computeIfAbsent(name, Quota::new);
+        Boolean started;
+        while ((started = quota.tryStart()) == null) {
+            // Dropped by a sweep in the meantime, or about to be
+            Thread.onSpinWait();
+            quota = quotas.computeIfAbsent(name, Quota::new);
+        }
+        if (!started) {
+            reject(quota, "concurrency", quota.bucket.rejectedConcurrency);
+            throw new TooManyRequestsException("Too many running conversions for user " + name,
+                    CONCURRENCY_RETRY_AFTER);
+        }
+        long wait = quota.take(conversions);
+        if (wait > 0) {
+            quota.finish();
+            reject(quota, "rate", quota.bucket.rejectedRate);
+            throw new TooManyRequestsException("Too many conversions for user " + name, Duration.ofNanos(wait));
+        }
+        if (maxUsers > 0 && quotas.size() > maxUsers) sweep();
+        return new Permit(quota);
+    }
+
+    /**
+     * @return Number of conversions the user is running right now.
+     */
+    public int running(String user) {
+        Quota quota = quotas.get(user == null || user.isBlank() ? ANONYMOUS : user);
+        return quota == null ? 0 : Math.max(0, quota.running.get());
+    }
+
+    private void reject(Quota quota, String reason, Counter rejected) {
+        logger.warn("Rejected conversion of user {} (bucket {}): {} quota exceeded", quota.user, quota.bucket.name,
+                reason);
+        rejected.increment();
+    }
+
+    /**
+     * Drop users which run nothing and whose bucket is full again. Only one thread sweeps at a time, the others carry
+     * on.
+     */
+    private void sweep() {
+        if (!sweeping.compareAndSet(false, true)) return;
+        try {
+            long now = System.nanoTime();
+            int before = quotas.size();
+            for (Map.Entry<String, Quota> e : quotas.entrySet()) {
+                if (e.getValue().drop(now)) quotas.remove(e.getKey(), e.getValue());
+            }
+            logger.debug("Dropped {} idle user quotas", before - quotas.size());
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    /**
+     * Conversions of a user, released by {@link #close()}. Closing twice has no effect.
+     */
+    public static final class Permit implements AutoCloseable {
+        private final Quota quota;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Permit(Quota quota) {
+            this.quota = quota;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) quota.finish();
+        }
+    }
+
+    // Meters of the users hashed into the same bucket
+    private static final class Bucket {
+        private final String name;
+        private final AtomicInteger running = new AtomicInteger();
+        private final Counter rejectedConcurrency;
+        private final Counter rejectedRate;
+
+        private Bucket(String name, MeterRegistry registry) {
+            this.name = name;
+            Gauge.builder("spec2tool.quota.running", running, AtomicInteger::get)
+                    .description("Conversions running under the quotas of the users in a bucket")
+                    .tag("bucket", name)
+                    .register(registry);
+            this.rejectedConcurrency = rejectedCounter("concurrency", registry);
+            this.rejectedRate = rejectedCounter("rate", registry);
+        }
+
+        private Counter rejectedCounter(String reason, MeterRegistry registry) {
+            return Counter.builder("spec2tool.quota.rejected")
+                    .description("Conversions rejected by the quotas of the users in a bucket")
+                    .tag("bucket", name)
+                    .tag("reason", reason)
+                    .register(registry);
+        }
+    }
+
+    private final class Quota {
+        // Value of the counter of running conversions once the quota is dropped
+        private static final int DROPPED = -1;
+
+        private final String user;
+        private final Bucket bucket;
+        private final AtomicInteger running = new AtomicInteger();
+        // Time at which the bucket is full again: each conversion moves it ahead by one interval, and no more than a
+        // burst into the future may be taken
+        private final AtomicLong next = new AtomicLong(System.nanoTime());
+
+        private Quota(String user) {
+            this.user = user;
+            this.bucket = buckets[Math.floorMod(user.hashCode(), buckets.length)];
+        }
+
+        /**
+         * @return Whether the conversion may start, null if the quota is dropped and the user gets a new one.
+         */
+        private Boolean tryStart() {
+            int current;
+            do {
+                current = running.get();
+                if (current == DROPPED) return null;
+                if (maxConcurrent > 0 && current >= maxConcurrent) return false;
+            } while (!running.compareAndSet(current, current + 1));
+            bucket.running.incrementAndGet();
+            return true;
+        }
+
+        private void finish() {
+            running.decrementAndGet();
+            bucket.running.decrementAndGet();
+        }
+
+        /**
+         * Take tokens from the bucket.
+         * @return 0 if the conversions may start, otherwise the nanoseconds until they may.
+         */
+        private long take(int conversions) {
+            if (intervalNanos <= 0) return 0;
+            // A request never costs more than a full bucket, otherwise it could never pass
+            long cost = intervalNanos * Math.max(1, conversions);
+            cost = Math.min(cost, burstNanos);
+            while (true) {
+                long now = System.nanoTime();
+                long current = next.get();
+                long updated = Math.max(current, now) + cost;
+                long wait = updated - now - burstNanos;
+                if (wait > 0) return wait;
+                if (next.compareAndSet(current, updated)) return 0;
+            }
+        }
+
+        /**
+         * Mark the quota as dropped if it runs nothing and its bucket is full. Once marked, no conversion starts on it,
+         * so nothing takes from its bucket either.
+         * @return Whether it was marked and may be removed.
+         */
+        private boolean drop(long now) {
+            if (next.get() - now > 0 || !running.compareAndSet(0, DROPPED)) return false;
+            // Tokens taken between the check and the mark
+            if (next.get() - now <= 0) return true;
+            running.set(0);
+            return false;
+        }
+    }
+}
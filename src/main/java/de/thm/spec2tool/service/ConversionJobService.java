@@ -0,0 +1,15 @@
+package de.thm.spec2tool.service;
+
+import de.thm.spec2tool.dto.JobDto;
+import de.thm.spec2tool.dto.ToolSpecificationDto;
+
+public interface ConversionJobService {
+
+    /**
+     * @param onFinished Called once the job finished, failed or was rejected.
+     */
+    JobDto submit(ToolSpecificationDto specification, Runnable onFinished);
+
+    JobDto get(String id);
+
+}
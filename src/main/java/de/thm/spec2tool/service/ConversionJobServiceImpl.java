@@ -0,0 +1,98 @@
+package de.thm.spec2tool.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import de.thm.spec2tool.cache.BoundedCache;
+import de.thm.spec2tool.dto.JobDto;
+import de.thm.spec2tool.dto.JobStatus;
+import de.thm.spec2tool.dto.ToolSetDto;
+import de.thm.spec2tool.dto.ToolSpecificationDto;
+import de.thm.spec2tool.exception.JobNotFoundException;
+import de.thm.spec2tool.exception.TooManyRequestsException;
+import de.thm.spec2tool.metrics.ConversionProfile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Runs conversions as jobs on the bounded job pool. Queued and running jobs are tracked until they finish,
+ * finished jobs are kept for a limited time so the client can fetch the result.
+ */
+@Service
+public class ConversionJobServiceImpl implements ConversionJobService {
+
+    private final ConversionService conversionService;
+    private final ThreadPoolExecutor jobExecutor;
+    private final Duration retryAfter;
+
+    private final Map<String, JobDto> active = new ConcurrentHashMap<>();
+    private final BoundedCache<String, JobDto> finished;
+
+    Logger logger = LoggerFactory.getLogger(ConversionJobServiceImpl.class);
+
+    public ConversionJobServiceImpl(ConversionServiceImpl conversionService,
+                                    @Qualifier("jobExecutor") ThreadPoolExecutor jobExecutor,
+                                    @Value("${spec2tool.jobs.retry-after:5s}") Duration retryAfter,
+                                    @Value("${spec2tool.jobs.max-finished:1000}") int maxFinished,
+                                    @Value("${spec2tool.jobs.retention:15m}") Duration retention) {
+        this.conversionService = conversionService;
+        this.jobExecutor = jobExecutor;
+        this.retryAfter = retryAfter;
+        this.finished = new BoundedCache<>(maxFinished, retention);
+    }
+
+    @Override
+    public JobDto submit(ToolSpecificationDto specification, Runnable onFinished) {
+        String id = UUID.randomUUID().toString();
+        JobDto job = new JobDto(id, JobStatus.QUEUED, null, null);
+        active.put(id, job);
+        try {
+            jobExecutor.execute(() -> {
+                try {
+                    run(id, specification);
+                } finally {
+                    onFinished.run();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            active.remove(id);
+            onFinished.run();
+            logger.warn("Job queue is full, rejecting conversion job");
+            throw new TooManyRequestsException("Job queue is full", retryAfter);
+        }
+        logger.debug("Queued conversion job {}", id);
+        return job;
+    }
+
+    @Override
+    public JobDto get(String id) {
+        JobDto job = active.get(id);
+        if (job == null) job = finished.get(id);
+        if (job == null) throw new JobNotFoundException("No job with id " + id);
+        return job;
+    }
+
+    private void run(String id, ToolSpecificationDto specification) {
+        active.put(id, new JobDto(id, JobStatus.RUNNING, null, null));
+        JobDto result;
+        try {
+            ToolSetDto toolSet = conversionService.convert(specification.spec(), specification.format(),
+                    specification.filter(), new ConversionProfile());
+            result = new JobDto(id, JobStatus.SUCCEEDED, toolSet, null);
+        } catch (JsonProcessingException | RuntimeException e) {
+            logger.warn("Conversion job {} failed: {}", id, e.getMessage());
+            result = new JobDto(id, JobStatus.FAILED, null, "Cannot convert specification to tool! " + e.getMessage());
+        }
+        finished.put(id, result);
+        active.remove(id);
+        logger.debug("Finished conversion job {} with status {}", id, result.status());
+    }
+}
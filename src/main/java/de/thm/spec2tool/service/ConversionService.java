@@ -1,14 +1,59 @@
 package de.thm.spec2tool.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import de.thm.spec2tool.cache.ToolIndex;
+import de.thm.spec2tool.dto.BatchResultDto;
+import de.thm.spec2tool.dto.ToolFilterDto;
 import de.thm.spec2tool.dto.ToolSetDto;
+import de.thm.spec2tool.dto.ToolSpecificationDto;
+import de.thm.spec2tool.mapper.ToolSink;
+import de.thm.spec2tool.metrics.ConversionProfile;
 
 import java.util.List;
 import java.util.Map;
 
 public interface ConversionService {
 
-    ToolSetDto convert(Map<String,Object> spec , String format) throws JsonProcessingException;
+    default ToolSetDto convert(Map<String,Object> spec , String format) throws JsonProcessingException {
+        return convert(spec, format, null, new ConversionProfile());
+    }
+
+    ToolSetDto convert(Map<String,Object> spec, String format, ToolFilterDto filter, ConversionProfile profile)
+            throws JsonProcessingException;
+
+    default ToolSetDto convert(String rawSpec, String format) {
+        return convert(rawSpec, format, new ConversionProfile());
+    }
+
+    ToolSetDto convert(String rawSpec, String format, ConversionProfile profile);
+
+    void convert(Map<String,Object> spec, String format, ToolFilterDto filter, ToolSink sink) throws JsonProcessingException;
+
+    /**
+     * Convert without the cache, the store and the conversion metrics, e.g. to warm up the mapper.
+     */
+    ToolSetDto convertUncached(Map<String,Object> spec, String format, ConversionProfile profile);
+
+    ToolSetDto convertUncached(String rawSpec, String format, ConversionProfile profile);
+
+    String etag(Map<String,Object> spec, String format, ToolFilterDto filter, ConversionProfile profile)
+            throws JsonProcessingException;
+
+    String etag(String rawSpec, String format, ConversionProfile profile);
+
+    /**
+     * Index of a converted tool set, to look up single tools without converting the spec again.
+     * @param toolSetId Key of the tool set, the value of its ETag with or without quotes.
+     */
+    ToolIndex toolIndex(String toolSetId);
+
+    /**
+     * Whether a converted tool set is held in the cache, the store or the registry, without converting anything.
+     * @param toolSetId Key of the tool set, the value of its ETag with or without quotes.
+     */
+    boolean isConverted(String toolSetId);
+
+    List<BatchResultDto> convertAll(List<ToolSpecificationDto> specifications);
 
     List<String> getSupportedApiSpec();
 
@@ -1,39 +1,287 @@
 package de.thm.spec2tool.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import de.thm.spec2tool.cache.ConversionCache;
+import de.thm.spec2tool.cache.SpecHash;
+import de.thm.spec2tool.cache.ToolIndex;
+import de.thm.spec2tool.cache.ToolRegistry;
+import de.thm.spec2tool.cache.ToolSetStore;
+import de.thm.spec2tool.dto.BatchResultDto;
+import de.thm.spec2tool.dto.ToolFilterDto;
+import de.thm.spec2tool.dto.ToolDto;
 import de.thm.spec2tool.dto.ToolSetDto;
+import de.thm.spec2tool.dto.ToolSpecificationDto;
+import de.thm.spec2tool.exception.LimitExceededException;
+import de.thm.spec2tool.exception.PayloadTooLargeException;
+import de.thm.spec2tool.exception.ToolNotFoundException;
 import de.thm.spec2tool.mapper.OpenApiMapper;
+import de.thm.spec2tool.mapper.OperationFilter;
+import de.thm.spec2tool.mapper.ToolSetCollector;
+import de.thm.spec2tool.mapper.ToolSetOptimizer;
+import de.thm.spec2tool.mapper.ToolSink;
+import de.thm.spec2tool.metrics.ConversionMetrics;
+import de.thm.spec2tool.metrics.ConversionProfile;
 import org.apache.commons.lang3.NotImplementedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
 
 @Service
 public class ConversionServiceImpl implements ConversionService {
 
     private final OpenApiMapper openApiMapper;
+    private final ToolSetOptimizer toolSetOptimizer;
+    private final ConversionCache conversionCache;
+    private final ToolSetStore toolSetStore;
+    private final ToolRegistry toolRegistry;
+    private final ExecutorService batchExecutor;
+    private final int maxBatchSize;
+    private final ConversionMetrics conversionMetrics;
+    private final String revision;
 
     Logger logger = LoggerFactory.getLogger(ConversionServiceImpl.class);
 
-    public ConversionServiceImpl(OpenApiMapper openApiMapper) {
+    public ConversionServiceImpl(OpenApiMapper openApiMapper, ToolSetOptimizer toolSetOptimizer,
+                                 ConversionCache conversionCache, ToolSetStore toolSetStore,
+                                 ToolRegistry toolRegistry,
+                                 @Qualifier("batchExecutor") ExecutorService batchExecutor,
+                                 @Value("${spec2tool.batch.max-size:500}") int maxBatchSize,
+                                 ConversionMetrics conversionMetrics) {
         this.openApiMapper = openApiMapper;
+        this.toolSetOptimizer = toolSetOptimizer;
+        this.conversionCache = conversionCache;
+        this.toolSetStore = toolSetStore;
+        this.toolRegistry = toolRegistry;
+        this.batchExecutor = batchExecutor;
+        this.maxBatchSize = maxBatchSize;
+        this.conversionMetrics = conversionMetrics;
+        // Tool sets depend on the spec and on the settings of mapper and optimizer
+        this.revision = openApiMapper.revision() + "." + toolSetOptimizer.revision();
     }
 
     @Override
-    public ToolSetDto convert(Map<String, Object> spec, String format) throws JsonProcessingException {
-        if ("openapi".equalsIgnoreCase(format)) {
-            return openApiMapper.convert(spec);
+    public ToolSetDto convert(Map<String, Object> spec, String format, ToolFilterDto filter, ConversionProfile profile)
+            throws JsonProcessingException {
+        requireSupported(format);
+        OperationFilter operationFilter = OperationFilter.of(filter);
+        String key = key(spec, format, operationFilter, profile);
+        return convertCached(key, profile, sink -> openApiMapper.convert(spec, operationFilter, sink, profile));
+    }
+
+    @Override
+    public ToolSetDto convert(String rawSpec, String format, ConversionProfile profile) {
+        requireSupported(format);
+        String key = key(rawSpec, format, profile);
+        return convertCached(key, profile, sink -> openApiMapper.convert(rawSpec, sink, profile));
+    }
+
+    /**
+     * Entity tag of the tool set a conversion of the spec returns, without converting it. It changes with the spec,
+     * the filter, the mapping rules and the output settings. The key is kept in the profile, so a following
+     * conversion does not hash the spec again.
+     */
+    @Override
+    public String etag(Map<String, Object> spec, String format, ToolFilterDto filter, ConversionProfile profile)
+            throws JsonProcessingException {
+        requireSupported(format);
+        return etag(key(spec, format, OperationFilter.of(filter), profile));
+    }
+
+    @Override
+    public String etag(String rawSpec, String format, ConversionProfile profile) {
+        requireSupported(format);
+        return etag(key(rawSpec, format, profile));
+    }
+
+    // Helper: weak, since JSON, Smile and CBOR of the same tool set share it
+    private static String etag(String key) {
+        return "W/\"" + key + "\"";
+    }
+
+    // Helper: hash the spec once per profile, the key of a tool set also covers the filter and the revision
+    private String key(Map<String, Object> spec, String format, OperationFilter filter, ConversionProfile profile)
+            throws JsonProcessingException {
+        if (profile.getKey() == null) {
+            long start = System.nanoTime();
+            String key = SpecHash.of(spec, format) + "-" + revision;
+            if (!filter.isAll()) key += "-" + SpecHash.of(filter.key(), "filter").substring(0, 16);
+            profile.setKey(key);
+            profile.add("hash", System.nanoTime() - start);
+        }
+        return profile.getKey();
+    }
+
+    private String key(String rawSpec, String format, ConversionProfile profile) {
+        if (profile.getKey() == null) {
+            profile.setKey(profile.time("hash", () -> SpecHash.of(rawSpec, format)) + "-" + revision);
+        }
+        return profile.getKey();
+    }
+
+    /**
+     * Stream a conversion into the sink. Cached tool sets are replayed, new conversions are not cached,
+     * so that the tool set is never held in memory as a whole.
+     */
+    @Override
+    public void convert(Map<String, Object> spec, String format, ToolFilterDto filter, ToolSink sink)
+            throws JsonProcessingException {
+        requireSupported(format);
+        ConversionProfile profile = new ConversionProfile();
+        OperationFilter operationFilter = OperationFilter.of(filter);
+        String key = key(spec, format, operationFilter, profile);
+        ToolSetDto cached = conversionCache.get(key);
+        if (cached == null) cached = fromStore(key, profile);
+        if (cached != null) {
+            profile.setCacheHit(true);
+            sink.header(cached.name(), cached.description());
+            for (ToolDto tool : cached.tools()) sink.tool(tool);
+        } else {
+            limited(() -> openApiMapper.convert(spec, operationFilter, toolSetOptimizer.sink(sink, profile), profile));
+        }
+        conversionMetrics.record(profile);
+    }
+
+    @Override
+    public ToolSetDto convertUncached(Map<String, Object> spec, String format, ConversionProfile profile) {
+        requireSupported(format);
+        return convertUncached(profile, sink -> openApiMapper.convert(spec, sink, profile));
+    }
+
+    @Override
+    public ToolSetDto convertUncached(String rawSpec, String format, ConversionProfile profile) {
+        requireSupported(format);
+        return convertUncached(profile, sink -> openApiMapper.convert(rawSpec, sink, profile));
+    }
+
+    private ToolSetDto convertUncached(ConversionProfile profile, Consumer<ToolSink> conversion) {
+        ToolSetCollector collector = new ToolSetCollector();
+        limited(() -> conversion.accept(toolSetOptimizer.sink(collector, profile)));
+        return collector.toToolSet();
+    }
+
+    // Helper: serve the tool set from the cache or the store, or convert it into a collector and keep it in both
+    private ToolSetDto convertCached(String key, ConversionProfile profile, Consumer<ToolSink> conversion) {
+        ToolSetDto toolSet = conversionCache.get(key);
+        if (toolSet == null) toolSet = fromStore(key, profile);
+        if (toolSet != null) {
+            profile.setCacheHit(true);
         } else {
+            ToolSetCollector collector = new ToolSetCollector();
+            limited(() -> conversion.accept(toolSetOptimizer.sink(collector, profile)));
+            toolSet = collector.toToolSet();
+            conversionCache.put(key, toolSet);
+            toolSetStore.put(key, toolSet);
+            toolRegistry.register(key, toolSet, collector.operationIds());
+        }
+        conversionMetrics.record(profile);
+        return toolSet;
+    }
+
+    /**
+     * Tool sets converted by this instance are indexed right away. Others, e.g. loaded from the store after a
+     * restart, are indexed on their first lookup, without their operationIds, which are not part of the tool set.
+     */
+    @Override
+    public ToolIndex toolIndex(String toolSetId) {
+        String key = keyOf(toolSetId);
+        ToolIndex index = toolRegistry.get(key);
+        if (index != null) return index;
+
+        // Not a conversion, so neither a cache hit nor a miss
+        ToolSetDto toolSet = conversionCache.peek(key);
+        if (toolSet == null) toolSet = fromStore(key, new ConversionProfile());
+        if (toolSet == null) {
+            logger.debug("No tool set {} to look up tools in", key);
+            throw new ToolNotFoundException("Unknown or expired tool set " + toolSetId);
+        }
+        return toolRegistry.register(key, toolSet, null);
+    }
+
+    @Override
+    public boolean isConverted(String toolSetId) {
+        String key = keyOf(toolSetId);
+        return toolRegistry.contains(key) || conversionCache.contains(key) || toolSetStore.contains(key);
+    }
+
+    // Helper: the key of a tool set from its ETag, which may be weak and quoted
+    private static String keyOf(String toolSetId) {
+        String key = toolSetId.startsWith("W/") ? toolSetId.substring(2) : toolSetId;
+        if (key.length() >= 2 && key.startsWith("\"") && key.endsWith("\"")) key = key.substring(1, key.length() - 1);
+        return key;
+    }
+
+    // Helper: run a conversion and count it if it exceeds one of the conversion limits
+    private void limited(Runnable conversion) {
+        try {
+            conversion.run();
+        } catch (LimitExceededException e) {
+            logger.warn("Conversion exceeded limit '{}': {}", e.getLimit(), e.getReason());
+            conversionMetrics.recordLimitExceeded(e.getLimit());
+            throw e;
+        }
+    }
+
+    // Helper: look up a tool set in the persistent store and move it into the cache, sharing its schemas
+    private ToolSetDto fromStore(String key, ConversionProfile profile) {
+        ToolSetDto toolSet = profile.time("store", () -> toolSetStore.get(key));
+        if (toolSet != null) {
+            toolSet = toolSetOptimizer.intern(toolSet);
+            conversionCache.put(key, toolSet);
+        }
+        return toolSet;
+    }
+
+    private void requireSupported(String format) {
+        if (!"openapi".equalsIgnoreCase(format)) {
             logger.error("Format not supported: {}", format);
             throw new NotImplementedException("No conversion for format " + format);
         }
     }
 
+    /**
+     * Convert all specifications concurrently on the batch executor.
+     * A failed conversion is reported in its result and does not affect the other ones.
+     * @return One result per specification, in the order of the batch.
+     */
+    @Override
+    public List<BatchResultDto> convertAll(List<ToolSpecificationDto> specifications) {
+        if (specifications.size() > maxBatchSize) {
+            logger.error("Batch of {} specifications exceeds the limit of {}", specifications.size(), maxBatchSize);
+            throw new PayloadTooLargeException("A batch may contain at most " + maxBatchSize + " specifications");
+        }
+
+        List<CompletableFuture<BatchResultDto>> futures = new ArrayList<>(specifications.size());
+        for (int i = 0; i < specifications.size(); i++) {
+            int index = i;
+            ToolSpecificationDto specification = specifications.get(i);
+            futures.add(CompletableFuture.supplyAsync(() -> convertItem(index, specification), batchExecutor));
+        }
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    private BatchResultDto convertItem(int index, ToolSpecificationDto specification) {
+        try {
+            if (specification == null) throw new IllegalArgumentException("Specification is missing");
+            ToolSetDto toolSet = convert(specification.spec(), specification.format(), specification.filter(),
+                    new ConversionProfile());
+            return new BatchResultDto(index, toolSet, null);
+        } catch (JsonProcessingException | RuntimeException e) {
+            logger.warn("Conversion of batch item {} failed: {}", index, e.getMessage());
+            return new BatchResultDto(index, null, "Cannot convert specification to tool! " + e.getMessage());
+        }
+    }
+
     @Override
     public List<String> getSupportedApiSpec() {
         return List.of("openapi");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,202 @@
+package de.thm.spec2tool.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.thm.spec2tool.mapper.SyntheticSpecs;
+import de.thm.spec2tool.metrics.ConversionProfile;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts the example spec and two generated ones of a small and a large API after startup, so that parser, Jackson
+ * and mapper are compiled by the JIT before real traffic arrives. Each iteration converts every spec once from a map and once from raw JSON, bypassing
+ * the cache. The warm-up ends when the duration of the iterations stabilized, or when its time budget ran out.
+ * Until then, {@link WarmupHealthIndicator} keeps the instance out of the readiness group.
+ */
+@Component
+public class ConversionWarmup {
+
+    // examples/json_placeholder_openApi.json, packaged by the build
+    private static final String EXAMPLE = "warmup/json_placeholder_openApi.json";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> SPEC_TYPE = new TypeReference<>() {};
+
+    private final ConversionService conversionService;
+    private final boolean enabled;
+    private final Duration budget;
+    private final int window;
+    private final double tolerance;
+    private final MeterRegistry registry;
+    private final Callable<Map<String, String>> specs;
+
+    private volatile boolean finished;
+    private volatile boolean stable;
+    private volatile int iterations;
+    private volatile long durationNanos;
+    private volatile long firstIterationNanos;
+    private volatile long lastIterationNanos;
+
+    Logger logger = LoggerFactory.getLogger(ConversionWarmup.class);
+
+    /**
+     * @param enabled Whether to warm up at all; instances are ready right away otherwise.
+     * @param budget Time after which the warm-up ends, stable or not.
+     * @param window Number of iterations whose median is compared with the one of the iterations before.
+     * @param tolerance Relative difference between both medians below which the warm-up is stable.
+     */
+    @Autowired
+    public ConversionWarmup(ConversionServiceImpl conversionService,
+                            @Value("${spec2tool.warmup.enabled:true}") boolean enabled,
+                            @Value("${spec2tool.warmup.budget:60s}") Duration budget,
+                            @Value("${spec2tool.warmup.window:5}") int window,
+                            @Value("${spec2tool.warmup.tolerance:0.1}") double tolerance,
+                            MeterRegistry registry) {
+        this(conversionService, enabled, budget, window, tolerance, registry, ConversionWarmup::specs);
+    }
+
+    /**
+     * @param specs Specs to convert in each iteration, as JSON by name.
+     */
+    ConversionWarmup(ConversionService conversionService, boolean enabled, Duration budget, int window,
+                     double tolerance, MeterRegistry registry, Callable<Map<String, String>> specs) {
+        this.conversionService = conversionService;
+        this.enabled = enabled;
+        this.budget = budget;
+        this.window = Math.max(2, window);
+        this.tolerance = tolerance;
+        this.registry = registry;
+        this.specs = specs;
+        this.finished = !enabled;
+    }
+
+    /**
+     * Start the warm-up in the background, so the application is live while it runs.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) return;
+        Thread thread = new Thread(this::run, "warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void run() {
+        long start = System.nanoTime();
+        try {
+            Map<String, String> specs = this.specs.call();
+            Deque<Long> recent = new ArrayDeque<>();
+            while (System.nanoTime() - start < budget.toNanos()) {
+                long iterationStart = System.nanoTime();
+                for (String spec : specs.values()) {
+                    conversionService.convertUncached(spec, "openapi", new ConversionProfile());
+                    conversionService.convertUncached(MAPPER.readValue(spec, SPEC_TYPE), "openapi",
+                            new ConversionProfile());
+                }
+                long elapsed = System.nanoTime() - iterationStart;
+                if (iterations++ == 0) firstIterationNanos = elapsed;
+                lastIterationNanos = elapsed;
+
+                recent.addLast(elapsed);
+                if (recent.size() > 2 * window) recent.removeFirst();
+                if (isStable(recent)) {
+                    stable = true;
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Warm-up failed after {} iterations, ready anyway: {}", iterations, e.getMessage());
+            return;
+        } finally {
+            durationNanos = System.nanoTime() - start;
+            finished = true;
+            register();
+        }
+        logger.info("Warm-up finished after {} iterations in {} ms, {}: first iteration {} ms, last {} ms",
+                iterations, TimeUnit.NANOSECONDS.toMillis(durationNanos), stable ? "stable" : "budget exhausted",
+                TimeUnit.NANOSECONDS.toMillis(firstIterationNanos), TimeUnit.NANOSECONDS.toMillis(lastIterationNanos));
+    }
+
+    /**
+     * Compare the medians of the last two windows of iterations, so that a single slow iteration, e.g. with a GC
+     * pause, neither ends nor prolongs the warm-up.
+     */
+    private boolean isStable(Deque<Long> recent) {
+        if (recent.size() < 2 * window) return false;
+        List<Long> durations = new ArrayList<>(recent);
+        long previous = median(durations.subList(0, window));
+        long last = median(durations.subList(window, 2 * window));
+        return Math.abs(last - previous) <= previous * tolerance;
+    }
+
+    private static long median(List<Long> durations) {
+        List<Long> sorted = new ArrayList<>(durations);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+
+    // Helper: the example and the synthetic specs of a small and a large API, as JSON by name
+    private static Map<String, String> specs() throws IOException {
+        Map<String, String> specs = new LinkedHashMap<>();
+        try (InputStream in = new ClassPathResource(EXAMPLE).getInputStream()) {
+            specs.put("json_placeholder", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        specs.put("synthetic_50", MAPPER.writeValueAsString(SyntheticSpecs.openApi(50, 4)));
+        specs.put("synthetic_500", MAPPER.writeValueAsString(SyntheticSpecs.openApi(500, 12)));
+        return specs;
+    }
+
+    // Helper: publish the result once the warm-up finished
+    private void register() {
+        TimeGauge.builder("spec2tool.warmup.duration", this, TimeUnit.NANOSECONDS, w -> w.durationNanos)
+                .description("Duration of the warm-up on startup").register(registry);
+        Gauge.builder("spec2tool.warmup.iterations", this, w -> w.iterations)
+                .description("Iterations of the warm-up on startup").register(registry);
+        TimeGauge.builder("spec2tool.warmup.iteration", this, TimeUnit.NANOSECONDS, w -> w.firstIterationNanos)
+                .description("Duration of an iteration of the warm-up").tag("iteration", "first").register(registry);
+        TimeGauge.builder("spec2tool.warmup.iteration", this, TimeUnit.NANOSECONDS, w -> w.lastIterationNanos)
+                .description("Duration of an iteration of the warm-up").tag("iteration", "last").register(registry);
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public boolean isStable() {
+        return stable;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public Duration getDuration() {
+        return Duration.ofNanos(durationNanos);
+    }
+
+    public Duration getLastIteration() {
+        return Duration.ofNanos(lastIterationNanos);
+    }
+}
@@ -0,0 +1,14 @@
+package de.thm.spec2tool.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import de.thm.spec2tool.dto.ToolSetDeltaDto;
+import de.thm.spec2tool.metrics.ConversionProfile;
+
+import java.util.Map;
+
+public interface DeltaConversionService {
+
+    ToolSetDeltaDto convert(Map<String,Object> spec, String format, String previous, boolean full,
+                            ConversionProfile profile) throws JsonProcessingException;
+
+}
@@ -0,0 +1,168 @@
+package de.thm.spec2tool.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import de.thm.spec2tool.cache.BoundedCache;
+import de.thm.spec2tool.cache.PathFingerprints;
+import de.thm.spec2tool.cache.SpecHash;
+import de.thm.spec2tool.dto.ToolDto;
+import de.thm.spec2tool.dto.ToolSetDeltaDto;
+import de.thm.spec2tool.dto.ToolSetDto;
+import de.thm.spec2tool.exception.LimitExceededException;
+import de.thm.spec2tool.mapper.OpenApiMapper;
+import de.thm.spec2tool.mapper.ToolSetOptimizer;
+import de.thm.spec2tool.mapper.ToolSink;
+import de.thm.spec2tool.metrics.ConversionMetrics;
+import de.thm.spec2tool.metrics.ConversionProfile;
+import org.apache.commons.lang3.NotImplementedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Converts new versions of a specification incrementally. Every conversion leaves a snapshot with the fingerprint
+ * and the tools of each path. When the next version names that snapshot as previous version, only the paths whose
+ * fingerprint changed are converted again, together with the components they reference.
+ * <p>
+ * Like the keys of cached tool sets, the fingerprint of a version covers the revision of the mapper and the output
+ * settings, so tools converted under other rules are never used as base of a delta.
+ */
+@Service
+public class DeltaConversionServiceImpl implements DeltaConversionService {
+
+    private final OpenApiMapper openApiMapper;
+    private final ToolSetOptimizer toolSetOptimizer;
+    private final ConversionMetrics conversionMetrics;
+    private final BoundedCache<String, Snapshot> snapshots;
+    private final String revision;
+
+    Logger logger = LoggerFactory.getLogger(DeltaConversionServiceImpl.class);
+
+    public DeltaConversionServiceImpl(OpenApiMapper openApiMapper, ToolSetOptimizer toolSetOptimizer,
+                                      ConversionMetrics conversionMetrics,
+                                      @Value("${spec2tool.delta.max-snapshots:64}") int maxSnapshots,
+                                      @Value("${spec2tool.delta.retention:1h}") Duration retention) {
+        this.openApiMapper = openApiMapper;
+        this.toolSetOptimizer = toolSetOptimizer;
+        this.conversionMetrics = conversionMetrics;
+        this.snapshots = new BoundedCache<>(maxSnapshots, retention);
+        this.revision = openApiMapper.revision() + "." + toolSetOptimizer.revision();
+    }
+
+    /**
+     * Convert a specification relative to a previous version.
+     * @param previous Fingerprint returned for the previous version, may be null.
+     * @param full Whether to return the complete tool set in addition to the delta.
+     */
+    @Override
+    public ToolSetDeltaDto convert(Map<String, Object> spec, String format, String previous, boolean full,
+                                   ConversionProfile profile) throws JsonProcessingException {
+        if (!"openapi".equalsIgnoreCase(format)) {
+            logger.error("Format not supported: {}", format);
+            throw new NotImplementedException("No conversion for format " + format);
+        }
+        if (spec == null) throw new IllegalArgumentException("Specification is missing");
+
+        long start = System.nanoTime();
+        String fingerprint = SpecHash.of(spec, format) + "-" + revision;
+        profile.add("hash", System.nanoTime() - start);
+        start = System.nanoTime();
+        PathFingerprints paths = PathFingerprints.of(spec);
+        profile.add("diff", System.nanoTime() - start);
+
+        Snapshot base = previous == null ? null : snapshots.get(previous);
+        if (previous != null && base == null) {
+            logger.info("Previous version {} is unknown or expired, converting all paths", previous);
+        }
+
+        List<String> changedPaths = new ArrayList<>();
+        for (String pathKey : paths.paths()) {
+            PathTools before = base == null ? null : base.paths().get(pathKey);
+            if (before == null || !before.fingerprint().equals(paths.get(pathKey))) changedPaths.add(pathKey);
+        }
+        logger.debug("{} of {} paths changed since {}", changedPaths.size(), paths.paths().size(), previous);
+
+        // Header and changed paths only; the paths share servers, so the sub-spec yields the same tools
+        PathCollector collector = new PathCollector();
+        try {
+            openApiMapper.convert(paths.subSpec(spec, changedPaths), toolSetOptimizer.sink(collector, profile), profile);
+        } catch (LimitExceededException e) {
+            logger.warn("Delta conversion exceeded limit '{}': {}", e.getLimit(), e.getReason());
+            conversionMetrics.recordLimitExceeded(e.getLimit());
+            throw e;
+        }
+
+        Map<String, PathTools> after = new LinkedHashMap<>();
+        List<ToolDto> added = new ArrayList<>();
+        List<ToolDto> changed = new ArrayList<>();
+        List<ToolDto> removed = new ArrayList<>();
+        for (String pathKey : paths.paths()) {
+            PathTools before = base == null ? null : base.paths().get(pathKey);
+            if (before != null && before.fingerprint().equals(paths.get(pathKey))) {
+                after.put(pathKey, before);
+                continue;
+            }
+            List<ToolDto> tools = collector.tools.getOrDefault(pathKey, List.of());
+            after.put(pathKey, new PathTools(paths.get(pathKey), tools));
+            diff(before == null ? List.of() : before.tools(), tools, added, changed, removed);
+        }
+        if (base != null) {
+            base.paths().forEach((pathKey, before) -> {
+                if (!after.containsKey(pathKey)) removed.addAll(before.tools());
+            });
+        }
+        snapshots.put(fingerprint, new Snapshot(after));
+
+        List<ToolDto> all = new ArrayList<>();
+        after.values().forEach(p -> all.addAll(p.tools()));
+        profile.setTools(all.size());
+        conversionMetrics.record(profile);
+
+        ToolSetDto toolSet = full ? new ToolSetDto(collector.name, collector.description, all.toArray(ToolDto[]::new)) : null;
+        return new ToolSetDeltaDto(fingerprint, base == null ? null : previous, collector.name, collector.description,
+                added, changed, removed, toolSet);
+    }
+
+    // Helper: compare the tools of one path by HTTP method
+    private static void diff(List<ToolDto> before, List<ToolDto> after,
+                             List<ToolDto> added, List<ToolDto> changed, List<ToolDto> removed) {
+        Map<String, ToolDto> old = new LinkedHashMap<>();
+        for (ToolDto tool : before) old.put(tool.requestMethod(), tool);
+        for (ToolDto tool : after) {
+            ToolDto previous = old.remove(tool.requestMethod());
+            if (previous == null) added.add(tool);
+            else if (!previous.equals(tool)) changed.add(tool);
+        }
+        removed.addAll(old.values());
+    }
+
+    private record PathTools(String fingerprint, List<ToolDto> tools) {}
+
+    private record Snapshot(Map<String, PathTools> paths) {}
+
+    // Sink which groups the tools by the path they were converted from
+    private static final class PathCollector implements ToolSink {
+        private String name;
+        private String description;
+        private final Map<String, List<ToolDto>> tools = new HashMap<>();
+
+        @Override
+        public void header(String name, String description) {
+            this.name = name;
+            this.description = description;
+        }
+
+        @Override
+        public void tool(ToolDto tool) {
+            throw new IllegalStateException("Tools must be passed with their path");
+        }
+
+        @Override
+        public void tool(String pathKey, ToolDto tool) {
+            tools.computeIfAbsent(pathKey, k -> new ArrayList<>()).add(tool);
+        }
+    }
+}
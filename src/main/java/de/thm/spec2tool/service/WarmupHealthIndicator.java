@@ -0,0 +1,30 @@
+package de.thm.spec2tool.service;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Health 'warmup', part of the readiness group: out of service while {@link ConversionWarmup} runs, so Kubernetes
+ * routes no traffic to a cold instance. A failed or exhausted warm-up does not keep the instance out.
+ */
+@Component
+public class WarmupHealthIndicator implements HealthIndicator {
+
+    private final ConversionWarmup conversionWarmup;
+
+    public WarmupHealthIndicator(ConversionWarmup conversionWarmup) {
+        this.conversionWarmup = conversionWarmup;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder health = conversionWarmup.isFinished() ? Health.up() : Health.outOfService();
+        return health
+                .withDetail("iterations", conversionWarmup.getIterations())
+                .withDetail("stable", conversionWarmup.isStable())
+                .withDetail("durationMs", conversionWarmup.getDuration().toMillis())
+                .withDetail("lastIterationMs", conversionWarmup.getLastIteration().toMillis())
+                .build();
+    }
+}
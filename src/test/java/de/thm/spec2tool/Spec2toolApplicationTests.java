@@ -3,7 +3,7 @@ package de.thm.spec2tool;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "spec2tool.warmup.enabled=false")
 class Spec2toolApplicationTests {
 
     @Test
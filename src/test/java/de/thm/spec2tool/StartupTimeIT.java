@@ -0,0 +1,81 @@
+package de.thm.spec2tool;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Starts the packaged application the way the 'aot' and 'native' profiles build it and measures the time until it
+ * is live. Readiness also waits for the warm-up, which is not part of the startup. Run by the failsafe plugin of
+ * these profiles, which set the command to start.
+ */
+class StartupTimeIT {
+
+    private static final HttpClient CLIENT = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+    @Test
+    void startsWithinBudget() throws Exception {
+        String command = System.getProperty("startup.command", "");
+        assumeTrue(!command.isBlank(), "No startup command, run with -Paot or -Pnative");
+        Duration maxTime = Duration.parse(System.getProperty("startup.max-time", "PT10S"));
+        int port = freePort();
+
+        List<String> arguments = new ArrayList<>(Arrays.asList(command.trim().split("\\s+")));
+        arguments.add("--server.port=" + port);
+        File log = File.createTempFile("startup", ".log");
+        long launched = System.nanoTime();
+        Process process = new ProcessBuilder(arguments)
+                .directory(new File(System.getProperty("startup.directory", ".")))
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+        try {
+            awaitHealthy(process, port, maxTime.multipliedBy(3));
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - launched);
+            System.out.printf("Startup of '%s' took %d ms (budget %d ms)%n", command, elapsed.toMillis(),
+                    maxTime.toMillis());
+            assertTrue(elapsed.compareTo(maxTime) <= 0,
+                    "Startup took " + elapsed.toMillis() + " ms, more than " + maxTime.toMillis() + " ms, see " + log);
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    // Helper: poll the liveness probe until it answers
+    private static void awaitHealthy(Process process, int port, Duration timeout) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/actuator/health/liveness"))
+                .timeout(Duration.ofSeconds(1)).build();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) fail("Application exited with " + process.exitValue() + " before it was live");
+            try {
+                if (CLIENT.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) return;
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(20);
+        }
+        fail("Application was not live within " + timeout.toMillis() + " ms");
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package de.thm.spec2tool.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LRU eviction at the bound, expiry after the time to live, and the counters exported as cache metrics.
+ */
+class BoundedCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsedAtBound() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(2, Duration.ofHours(1));
+        cache.put("a", 1);
+        cache.put("b", 2);
+        // Reading a makes b the least recently used entry
+        assertEquals(1, cache.get("a"));
+        cache.put("c", 3);
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.get("a"));
+        assertEquals(3, cache.get("c"));
+        assertEquals(1, cache.evictions());
+    }
+
+    @Test
+    void expiresEntriesAfterTtl() throws InterruptedException {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(10, Duration.ofMillis(50));
+        cache.put("a", 1);
+        // A shorter time to live per entry wins, a longer one is capped by the default
+        cache.put("b", 2, Duration.ofMillis(1));
+        cache.put("c", 3, Duration.ofHours(1));
+        Thread.sleep(20);
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.get("a"));
+        // In order of use, a was read last
+        assertEquals(List.of(3, 1), cache.values());
+
+        Thread.sleep(60);
+        assertNull(cache.get("a"));
+        assertFalse(cache.contains("c"));
+        assertTrue(cache.values().isEmpty());
+        assertEquals(2, cache.evictions());
+    }
+
+    @Test
+    void countsHitsAndMisses() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(10, Duration.ofHours(1));
+        cache.put("a", 1);
+        cache.get("a");
+        cache.get("a");
+        cache.get("unknown");
+        // Neither peek(), contains() nor values() count
+        assertEquals(1, cache.peek("a"));
+        assertNull(cache.peek("unknown"));
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("unknown"));
+        cache.values();
+
+        assertEquals(2, cache.hits());
+        assertEquals(1, cache.misses());
+        assertEquals(0, cache.evictions());
+    }
+
+    @Test
+    void storesNothingWithoutEntriesOrTtl() {
+        BoundedCache<String, Integer> disabled = new BoundedCache<>(0, Duration.ofHours(1));
+        disabled.put("a", 1);
+        assertNull(disabled.get("a"));
+
+        BoundedCache<String, Integer> expired = new BoundedCache<>(10, Duration.ZERO);
+        expired.put("a", 1);
+        assertEquals(0, expired.size());
+    }
+
+    @Test
+    void removesEntries() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(10, Duration.ofHours(1));
+        cache.put("a", 1);
+        cache.remove("a");
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,94 @@
+package de.thm.spec2tool.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The fingerprint of a path must change exactly when the path item, a component it reaches or the shared parts of
+ * the document change.
+ */
+class PathFingerprintsTest {
+
+    @Test
+    void changesOnlyWithOwnPathItem() throws Exception {
+        PathFingerprints before = PathFingerprints.of(spec(paths(), schemas(), "https://api.example.com"));
+        Map<String, Object> paths = paths();
+        paths.put("/stores", Map.of("get", Map.of("summary", "List all stores")));
+        paths.put("/toys", Map.of("get", Map.of("summary", "List toys")));
+        PathFingerprints after = PathFingerprints.of(spec(paths, schemas(), "https://api.example.com"));
+
+        assertEquals(before.get("/pets"), after.get("/pets"));
+        assertEquals(before.get("/owners"), after.get("/owners"));
+        assertNotEquals(before.get("/stores"), after.get("/stores"));
+        assertNull(before.get("/toys"));
+        assertEquals(List.of("/pets", "/owners", "/stores", "/toys"), List.copyOf(after.paths()));
+    }
+
+    @Test
+    void changesWithEveryComponentReachedTransitively() throws Exception {
+        PathFingerprints before = PathFingerprints.of(spec(paths(), schemas(), "https://api.example.com"));
+        Map<String, Object> schemas = schemas();
+        schemas.put("Address", Map.of("type", "object", "properties", Map.of("zip", Map.of("type", "string"))));
+        PathFingerprints after = PathFingerprints.of(spec(paths(), schemas, "https://api.example.com"));
+
+        // Pet -> Address and Owner -> Address
+        assertNotEquals(before.get("/pets"), after.get("/pets"));
+        assertNotEquals(before.get("/owners"), after.get("/owners"));
+        assertEquals(before.get("/stores"), after.get("/stores"));
+    }
+
+    @Test
+    void changesWithSharedServers() throws Exception {
+        PathFingerprints before = PathFingerprints.of(spec(paths(), schemas(), "https://api.example.com"));
+        PathFingerprints after = PathFingerprints.of(spec(paths(), schemas(), "https://next.example.com"));
+
+        for (String path : before.paths()) assertNotEquals(before.get(path), after.get(path), path);
+    }
+
+    @Test
+    void subSpecKeepsReferencedComponentsOnly() throws Exception {
+        Map<String, Object> spec = spec(paths(), schemas(), "https://api.example.com");
+        Map<String, Object> sub = PathFingerprints.of(spec).subSpec(spec, List.of("/owners"));
+
+        assertEquals(Set.of("/owners"), ((Map<?, ?>) sub.get("paths")).keySet());
+        Map<?, ?> components = (Map<?, ?>) sub.get("components");
+        assertEquals(Set.of("Owner", "Address"), ((Map<?, ?>) components.get("schemas")).keySet());
+        assertEquals(spec.get("servers"), sub.get("servers"));
+    }
+
+    private static Map<String, Object> spec(Map<String, Object> paths, Map<String, Object> schemas, String server) {
+        return Map.of("openapi", "3.0.3", "servers", List.of(Map.of("url", server)),
+                "paths", paths, "components", Map.of("schemas", schemas));
+    }
+
+    private static Map<String, Object> paths() {
+        Map<String, Object> paths = new LinkedHashMap<>();
+        paths.put("/pets", Map.of("post", body("Pet")));
+        paths.put("/owners", Map.of("post", body("Owner")));
+        paths.put("/stores", Map.of("get", Map.of("summary", "List stores")));
+        return paths;
+    }
+
+    private static Map<String, Object> schemas() {
+        Map<String, Object> schemas = new LinkedHashMap<>();
+        schemas.put("Pet", Map.of("type", "object", "properties", Map.of("home", ref("Address"))));
+        schemas.put("Owner", Map.of("type", "object", "properties", Map.of("address", ref("Address"))));
+        schemas.put("Address", Map.of("type", "object", "properties", Map.of("street", Map.of("type", "string"))));
+        schemas.put("Unused", Map.of("type", "string"));
+        return schemas;
+    }
+
+    private static Map<String, Object> body(String schema) {
+        return Map.of("requestBody", Map.of("content", Map.of("application/json", Map.of("schema", ref(schema)))));
+    }
+
+    private static Map<String, Object> ref(String name) {
+        return Map.of("$ref", "#/components/schemas/" + name);
+    }
+}
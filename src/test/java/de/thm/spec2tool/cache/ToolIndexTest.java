@@ -0,0 +1,72 @@
+package de.thm.spec2tool.cache;
+
+import de.thm.spec2tool.dto.ToolDto;
+import de.thm.spec2tool.dto.ToolSetDto;
+import de.thm.spec2tool.mapper.ConversionLimits;
+import de.thm.spec2tool.mapper.OpenApiMapper;
+import de.thm.spec2tool.mapper.SyntheticSpecs;
+import de.thm.spec2tool.mapper.ToolSetCollector;
+import de.thm.spec2tool.metrics.ConversionProfile;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Every lookup of the index must find the same tools as a scan of the tool set.
+ */
+class ToolIndexTest {
+
+    private static ToolSetDto toolSet;
+    private static ToolIndex index;
+
+    @BeforeAll
+    static void setUp() {
+        OpenApiMapper mapper = new OpenApiMapper(16, 0, 0, true, ConversionLimits.NONE);
+        ToolSetCollector collector = new ToolSetCollector();
+        mapper.convert(SyntheticSpecs.openApi(300, 2), collector, new ConversionProfile());
+        toolSet = collector.toToolSet();
+        index = new ToolIndex(toolSet, collector.operationIds());
+    }
+
+    @Test
+    void findsEveryToolByNameOperationIdAndEndpoint() {
+        assertEquals(300, index.size());
+        for (ToolDto tool : toolSet.tools()) {
+            assertSame(tool, index.byName(tool.name()));
+            assertSame(tool, index.byEndpoint(tool.requestMethod().toLowerCase(), tool.endpoint()));
+        }
+        ToolDto tool = index.byOperationId("postResource7");
+        assertEquals("POST", tool.requestMethod());
+        assertEquals("https://synthetic.example.com/v1/resources7/{id}", tool.endpoint());
+        assertNull(index.byName("unknown"));
+        assertNull(index.byOperationId("unknown"));
+    }
+
+    @Test
+    void searchesNamesAndDescriptionsByPrefix() {
+        List<ToolDto> expected = Arrays.stream(toolSet.tools())
+                .filter(t -> t.name().startsWith("synthetic_post_of_resource_1")
+                        || t.description().toLowerCase().startsWith("synthetic_post_of_resource_1"))
+                .toList();
+        List<ToolDto> found = index.search("Synthetic_POST_of_resource_1", 100);
+        assertEquals(expected.size(), found.size());
+        assertTrue(found.containsAll(expected));
+
+        assertEquals(5, index.search("synthetic", 5).size());
+        assertEquals(300, index.search("", 1000).size());
+        assertTrue(index.search("nothing", 10).isEmpty());
+    }
+
+    @Test
+    void toolSetsWithoutOperationIdsAreFoundByName() {
+        ToolIndex stored = new ToolIndex(toolSet, null);
+        ToolDto first = toolSet.tools()[0];
+        assertSame(first, stored.byName(first.name()));
+        assertNull(stored.byOperationId("getResource0"));
+    }
+}
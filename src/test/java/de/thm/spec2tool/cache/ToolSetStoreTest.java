@@ -0,0 +1,133 @@
+package de.thm.spec2tool.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.thm.spec2tool.dto.ToolDto;
+import de.thm.spec2tool.dto.ToolSetDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The store must return what was put into it across restarts, drop a torn tail instead of failing, and stay below
+ * its maximum size.
+ */
+class ToolSetStoreTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void returnsToolSetsAfterReopen() throws Exception {
+        ToolSetStore store = open(DataSize.ofMegabytes(1));
+        ToolSetDto first = toolSet(1, 100);
+        ToolSetDto second = toolSet(2, 100);
+        store.put("first", first);
+        store.put("second", second);
+        long bytes = store.bytes();
+        store.close();
+
+        ToolSetStore reopened = open(DataSize.ofMegabytes(1));
+        assertEquals(2, reopened.size());
+        assertEquals(bytes, reopened.bytes());
+        assertJsonEquals(first, reopened.get("first"));
+        assertJsonEquals(second, reopened.get("second"));
+        assertNull(reopened.get("unknown"));
+        reopened.close();
+    }
+
+    @Test
+    void truncatesCorruptTail() throws Exception {
+        ToolSetStore store = open(DataSize.ofMegabytes(1));
+        store.put("first", toolSet(1, 100));
+        long valid = store.bytes();
+        store.put("second", toolSet(2, 100));
+        store.close();
+
+        // Flip a byte in the payload of the last record, then append half a header as of an interrupted write
+        Path log = directory.resolve("toolsets.log");
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, valid + 20);
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) ~b.get(0)}), valid + 20);
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 1, 0}), channel.size());
+        }
+
+        ToolSetStore reopened = open(DataSize.ofMegabytes(1));
+        assertEquals(1, reopened.size());
+        assertEquals(valid, Files.size(log));
+        assertNotNull(reopened.get("first"));
+        assertNull(reopened.get("second"));
+
+        // Appends continue after the last valid record
+        reopened.put("third", toolSet(3, 100));
+        reopened.close();
+        ToolSetStore again = open(DataSize.ofMegabytes(1));
+        assertEquals(2, again.size());
+        assertJsonEquals(toolSet(3, 100), again.get("third"));
+        again.close();
+    }
+
+    @Test
+    void compactsToNewestToolSets() throws Exception {
+        DataSize maxSize = DataSize.ofKilobytes(64);
+        ToolSetStore store = open(maxSize);
+        for (int i = 0; i < 40; i++) {
+            store.put("key" + i, toolSet(i, 4000));
+            assertTrue(store.bytes() <= maxSize.toBytes(), "Store grew to " + store.bytes() + " bytes");
+        }
+        assertTrue(store.size() < 40);
+        assertNull(store.get("key0"));
+        assertJsonEquals(toolSet(39, 4000), store.get("key39"));
+        int size = store.size();
+        store.close();
+
+        // The compacted log is read back completely
+        ToolSetStore reopened = open(maxSize);
+        assertEquals(size, reopened.size());
+        assertJsonEquals(toolSet(39, 4000), reopened.get("key39"));
+        reopened.close();
+    }
+
+    @Test
+    void doesNothingIfDisabled() throws IOException {
+        ToolSetStore store = new ToolSetStore(false, directory, DataSize.ofMegabytes(1));
+        store.open();
+        store.put("first", toolSet(1, 100));
+        assertNull(store.get("first"));
+        assertFalse(Files.exists(directory.resolve("toolsets.log")));
+    }
+
+    private ToolSetStore open(DataSize maxSize) throws IOException {
+        ToolSetStore store = new ToolSetStore(true, directory, maxSize);
+        store.open();
+        return store;
+    }
+
+    // Helper: a tool set with a random description of the given length, which deflate cannot shrink much
+    private static ToolSetDto toolSet(int seed, int descriptionLength) {
+        Random random = new Random(seed);
+        StringBuilder description = new StringBuilder();
+        while (description.length() < descriptionLength) description.append((char) ('a' + random.nextInt(26)));
+        ToolDto tool = new ToolDto("tool_" + seed, description.toString(), "GET", "https://api.example.com/" + seed,
+                Map.of("type", "object", "properties", Map.of("id", Map.of("type", "integer"))));
+        return new ToolSetDto("toolset_" + seed, "Tool set " + seed, new ToolDto[]{tool});
+    }
+
+    private static void assertJsonEquals(ToolSetDto expected, ToolSetDto actual) throws IOException {
+        assertNotNull(actual);
+        assertEquals(MAPPER.writeValueAsString(expected), MAPPER.writeValueAsString(actual));
+    }
+}
@@ -0,0 +1,279 @@
+package de.thm.spec2tool.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.thm.spec2tool.security.LocalJwtIssuer;
+import de.thm.spec2tool.security.UserQuotas;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ApplicationContext;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The conversion endpoints over HTTP, resource server included, against a local stand-in for the identity provider.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spec2tool.quotas.max-concurrent=1",
+        "spec2tool.quotas.rate=0",
+        "spec2tool.warmup.enabled=false",
+        "spec2tool.limits.max-body-size=64KB",
+        "logging.level.de.thm.spec2tool=WARN"
+})
+class ConversionControllerTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final HttpClient CLIENT = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    private static LocalJwtIssuer issuer;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserQuotas userQuotas;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    @Qualifier("jobExecutor")
+    private ThreadPoolExecutor jobExecutor;
+
+    @DynamicPropertySource
+    static void identityProvider(DynamicPropertyRegistry registry) throws Exception {
+        issuer = new LocalJwtIssuer();
+        registry.add("spring.security.oauth2.resourceserver.jwt.issuer-uri", issuer::issuerUri);
+        registry.add("spring.security.oauth2.resourceserver.jwt.jwk-set-uri", issuer::jwkSetUri);
+    }
+
+    @AfterAll
+    static void stopIdentityProvider() {
+        if (issuer != null) issuer.close();
+    }
+
+    @Test
+    void streamEndsWithErrorLineIfConversionFailsAfterFirstLine() throws Exception {
+        // The header is written before the operation without a parameter schema fails
+        Map<String, Object> spec = spec(Map.of("/items", Map.of("get", Map.of("summary", "List items",
+                "parameters", List.of(Map.of("name", "q", "in", "query")),
+                "responses", Map.of("200", Map.of("description", "OK"))))));
+
+        HttpResponse<String> response = stream("stream-error", spec);
+
+        assertEquals(200, response.statusCode());
+        List<String> lines = response.body().lines().toList();
+        assertEquals("test_api", JSON.readTree(lines.get(0)).get("name").asText());
+        JsonNode last = JSON.readTree(lines.get(lines.size() - 1));
+        assertTrue(last.hasNonNull("error"), "No error line in " + lines);
+    }
+
+    @Test
+    void streamReleasesPermit() throws Exception {
+        Map<String, Object> spec = spec(Map.of("/items", Map.of("get", Map.of("summary", "List items",
+                "responses", Map.of("200", Map.of("description", "OK"))))));
+
+        // One conversion at a time, so a leaked permit would reject the next stream
+        for (int i = 0; i < 3; i++) assertEquals(200, stream("stream-permit", spec).statusCode());
+        awaitReleased("stream-permit");
+    }
+
+    @Test
+    void wildcardMatchesOnlyConvertedToolSets() throws Exception {
+        Map<String, Object> spec = spec(Map.of("/wildcard", Map.of("get", Map.of("summary", "Never converted",
+                "responses", Map.of("200", Map.of("description", "OK"))))));
+
+        HttpResponse<String> first = send("wildcard", convert(spec).header("If-None-Match", "*"));
+        assertEquals(200, first.statusCode());
+        assertTrue(first.body().contains("never_converted"));
+
+        HttpResponse<String> second = send("wildcard", convert(spec).header("If-None-Match", "*"));
+        assertEquals(304, second.statusCode());
+        assertEquals(first.headers().firstValue("ETag"), second.headers().firstValue("ETag"));
+    }
+
+    @Test
+    void rejectsLargeBodyWithContentLength() throws Exception {
+        HttpResponse<String> response = send("large-body", HttpRequest.newBuilder(uri("/convert/raw?format=openapi"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(largeSpec())));
+
+        assertEquals(413, response.statusCode());
+    }
+
+    @Test
+    void rejectsLargeChunkedBody() throws Exception {
+        byte[] raw = largeSpec();
+        byte[] wrapped = JSON.writeValueAsBytes(Map.of("format", "openapi", "spec", JSON.readTree(raw)));
+        // Unknown length, so the body is sent chunked and only counted while it is read, as bytes or by Jackson
+        Map<String, byte[]> bodies = Map.of("/convert/raw?format=openapi", raw, "/convert", wrapped);
+        for (Map.Entry<String, byte[]> request : bodies.entrySet()) {
+            byte[] body = request.getValue();
+            HttpResponse<String> response = send("large-chunked", HttpRequest.newBuilder(uri(request.getKey()))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofInputStream(() -> new ByteArrayInputStream(body))));
+
+            assertEquals(413, response.statusCode(), request.getKey());
+        }
+    }
+
+    @Test
+    void batchReturnsResultsInInputOrder() throws Exception {
+        // Larger specs first, so later items tend to finish earlier
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (int i = 0; i < 8; i++) items.add(Map.of("format", "openapi", "spec", titled("Batch " + i, 8 * (8 - i))));
+
+        HttpResponse<String> response = send("batch-order", batch(items));
+
+        assertEquals(200, response.statusCode());
+        JsonNode results = JSON.readTree(response.body());
+        assertEquals(8, results.size());
+        for (int i = 0; i < 8; i++) {
+            assertEquals(i, results.get(i).get("index").asInt());
+            assertEquals("batch_" + i, results.get(i).get("toolSet").get("name").asText());
+            assertEquals(8 * (8 - i), results.get(i).get("toolSet").get("tools").size());
+        }
+    }
+
+    @Test
+    void batchReportsFailedItemWithoutFailingOthers() throws Exception {
+        Map<String, Object> broken = spec(Map.of("/items", Map.of("get", Map.of("summary", "List items",
+                "parameters", List.of(Map.of("name", "q", "in", "query")),
+                "responses", Map.of("200", Map.of("description", "OK"))))));
+        List<Map<String, Object>> items = List.of(
+                Map.of("format", "openapi", "spec", titled("First", 2)),
+                Map.of("format", "openapi", "spec", broken),
+                Map.of("format", "raml", "spec", titled("Unsupported", 1)),
+                Map.of("format", "openapi", "spec", titled("Last", 3)));
+
+        HttpResponse<String> response = send("batch-error", batch(items));
+
+        assertEquals(200, response.statusCode());
+        JsonNode results = JSON.readTree(response.body());
+        assertEquals("first", results.get(0).get("toolSet").get("name").asText());
+        for (int i : new int[]{1, 2}) {
+            assertEquals(i, results.get(i).get("index").asInt());
+            assertTrue(results.get(i).hasNonNull("error"), "No error for item " + i);
+            assertFalse(results.get(i).has("toolSet"));
+        }
+        assertEquals("last", results.get(3).get("toolSet").get("name").asText());
+        assertFalse(results.get(3).has("error"));
+    }
+
+    @Test
+    void rejectsJobIfQueueIsFullAndReleasesPermit() throws Exception {
+        // Occupy every thread and queue slot of the job pool
+        CountDownLatch release = new CountDownLatch(1);
+        int slots = jobExecutor.getMaximumPoolSize() + jobExecutor.getQueue().remainingCapacity();
+        for (int i = 0; i < slots; i++) {
+            jobExecutor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        try {
+            HttpResponse<String> response = send("job-full", HttpRequest.newBuilder(uri("/convert/jobs"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(
+                            JSON.writeValueAsBytes(Map.of("format", "openapi", "spec", titled("Job", 1))))));
+
+            assertEquals(429, response.statusCode());
+            assertEquals("5", response.headers().firstValue("Retry-After").orElseThrow());
+            // The permit taken for the job is released on rejection, not only when a job finishes
+            assertEquals(0, userQuotas.running("job-full"));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void streamsRunOnBoundedTaskExecutor() {
+        // Created despite the batch and job pools, otherwise MVC async falls back to a new thread per stream
+        ThreadPoolTaskExecutor executor = assertInstanceOf(ThreadPoolTaskExecutor.class,
+                context.getBean("applicationTaskExecutor"));
+        assertEquals(32, executor.getMaxPoolSize());
+        assertEquals(100, executor.getQueueCapacity());
+    }
+
+    // Helper: the permit is released once the async request completed, shortly after the client read the body
+    private void awaitReleased(String user) throws InterruptedException {
+        for (int i = 0; i < 100 && userQuotas.running(user) > 0; i++) Thread.sleep(20);
+        assertEquals(0, userQuotas.running(user));
+    }
+
+    private HttpResponse<String> stream(String user, Map<String, Object> spec) throws Exception {
+        return send(user, HttpRequest.newBuilder(uri("/convert"))
+                .header("Accept", ConversionController.APPLICATION_NDJSON_VALUE)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(
+                        JSON.writeValueAsBytes(Map.of("format", "openapi", "spec", spec)))));
+    }
+
+    private HttpRequest.Builder convert(Map<String, Object> spec) throws Exception {
+        return HttpRequest.newBuilder(uri("/convert"))
+                .header("Accept", "application/json")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(
+                        JSON.writeValueAsBytes(Map.of("format", "openapi", "spec", spec))));
+    }
+
+    private HttpRequest.Builder batch(List<Map<String, Object>> items) throws Exception {
+        return HttpRequest.newBuilder(uri("/convert/batch"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(JSON.writeValueAsBytes(items)));
+    }
+
+    private HttpResponse<String> send(String user, HttpRequest.Builder request) throws Exception {
+        String token = issuer.mint(user, Duration.ofMinutes(5));
+        return CLIENT.send(request.header("Authorization", "Bearer " + token).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    // Helper: a valid spec just above the maximum body size of 64KB
+    private static byte[] largeSpec() throws Exception {
+        return JSON.writeValueAsBytes(Map.of("openapi", "3.0.3",
+                "info", Map.of("title", "Large API", "version", "1", "description", "x".repeat(70 * 1024)),
+                "paths", Map.of()));
+    }
+
+    // Helper: a spec with the given title and one GET operation per path
+    private static Map<String, Object> titled(String title, int operations) {
+        Map<String, Object> paths = new LinkedHashMap<>();
+        for (int i = 0; i < operations; i++) {
+            paths.put("/items" + i, Map.of("get", Map.of("summary", "List items " + i,
+                    "responses", Map.of("200", Map.of("description", "OK")))));
+        }
+        return Map.of("openapi", "3.0.3", "info", Map.of("title", title, "version", "1"), "paths", paths);
+    }
+
+    private static Map<String, Object> spec(Map<String, Object> paths) {
+        return Map.of("openapi", "3.0.3", "info", Map.of("title", "Test API", "version", "1"), "paths", paths);
+    }
+}
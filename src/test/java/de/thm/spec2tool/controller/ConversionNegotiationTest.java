@@ -0,0 +1,152 @@
+package de.thm.spec2tool.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import de.thm.spec2tool.cache.ConversionCache;
+import de.thm.spec2tool.security.LocalJwtIssuer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Content negotiation and conditional requests of the conversion endpoints: JSON, Smile and CBOR carry the same tool
+ * set under the same weak ETag, which varies by 'Accept', and a matching 'If-None-Match' skips the conversion.
+ */
+@SpringBootTest(properties = {
+        "spec2tool.quotas.rate=0",
+        "spec2tool.warmup.enabled=false",
+        "logging.level.de.thm.spec2tool=WARN"
+})
+@AutoConfigureMockMvc
+class ConversionNegotiationTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private static LocalJwtIssuer issuer;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ConversionCache conversionCache;
+
+    @DynamicPropertySource
+    static void identityProvider(DynamicPropertyRegistry registry) throws Exception {
+        issuer = new LocalJwtIssuer();
+        registry.add("spring.security.oauth2.resourceserver.jwt.issuer-uri", issuer::issuerUri);
+        registry.add("spring.security.oauth2.resourceserver.jwt.jwk-set-uri", issuer::jwkSetUri);
+    }
+
+    @AfterAll
+    static void stopIdentityProvider() {
+        if (issuer != null) issuer.close();
+    }
+
+    @Test
+    void negotiatesJsonSmileAndCbor() throws Exception {
+        byte[] body = body(spec("Negotiated API"));
+        MvcResult json = mvc.perform(authorized(post("/convert")).accept(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(containsString("Accept"))))
+                .andReturn();
+        JsonNode expected = JSON.readTree(json.getResponse().getContentAsByteArray());
+        String etag = json.getResponse().getHeader(HttpHeaders.ETAG);
+        assertTrue(etag.startsWith("W/\""), etag);
+        assertEquals("negotiated_api", expected.get("name").asText());
+
+        MvcResult smile = mvc.perform(authorized(post("/convert"))
+                        .accept(MediaType.parseMediaType(ConversionController.APPLICATION_SMILE_VALUE)).content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(ConversionController.APPLICATION_SMILE_VALUE))
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andReturn();
+        assertEquals(expected, new SmileMapper().readTree(smile.getResponse().getContentAsByteArray()));
+
+        MvcResult cbor = mvc.perform(authorized(post("/convert")).accept(MediaType.APPLICATION_CBOR).content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andReturn();
+        assertEquals(expected, new CBORMapper().readTree(cbor.getResponse().getContentAsByteArray()));
+    }
+
+    @Test
+    void answersMatchingEtagWithNotModifiedWithoutConverting() throws Exception {
+        byte[] body = body(spec("Conditional API"));
+        String etag = mvc.perform(authorized(post("/convert")).accept(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        long lookups = conversionCache.hits() + conversionCache.misses();
+        mvc.perform(authorized(post("/convert")).accept(MediaType.APPLICATION_JSON).content(body)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"other\", " + etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(containsString("Accept"))))
+                .andExpect(content().bytes(new byte[0]));
+        // Neither the cache nor the mapper were asked
+        assertEquals(lookups, conversionCache.hits() + conversionCache.misses());
+
+        // A strong tag with the same value matches as well, weak comparison
+        mvc.perform(authorized(post("/convert")).accept(MediaType.APPLICATION_JSON).content(body)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag.substring(2)))
+                .andExpect(status().isNotModified());
+        mvc.perform(authorized(post("/convert")).accept(MediaType.APPLICATION_JSON).content(body)
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/\"other\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void answersMatchingEtagOfRawSpecWithNotModified() throws Exception {
+        byte[] raw = JSON.writeValueAsBytes(spec("Raw API"));
+        String etag = mvc.perform(authorized(post("/convert/raw?format=openapi"))
+                        .contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_CBOR).content(raw))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(containsString("Accept"))))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        long lookups = conversionCache.hits() + conversionCache.misses();
+        mvc.perform(authorized(post("/convert/raw?format=openapi"))
+                        .contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON).content(raw)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        assertEquals(lookups, conversionCache.hits() + conversionCache.misses());
+    }
+
+    private static MockHttpServletRequestBuilder authorized(MockHttpServletRequestBuilder request) throws Exception {
+        return request.header(HttpHeaders.AUTHORIZATION, "Bearer " + issuer.mint("negotiation", Duration.ofMinutes(5)))
+                .contentType(MediaType.APPLICATION_JSON);
+    }
+
+    private static byte[] body(Map<String, Object> spec) throws Exception {
+        return JSON.writeValueAsBytes(Map.of("format", "openapi", "spec", spec));
+    }
+
+    private static Map<String, Object> spec(String title) {
+        return Map.of("openapi", "3.0.3", "info", Map.of("title", title, "version", "1"),
+                "paths", Map.of("/items", Map.of("get", Map.of("summary", "List items",
+                        "responses", Map.of("200", Map.of("description", "OK"))))));
+    }
+}
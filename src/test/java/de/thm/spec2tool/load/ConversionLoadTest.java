@@ -0,0 +1,300 @@
+package de.thm.spec2tool.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import de.thm.spec2tool.mapper.SyntheticSpecs;
+import de.thm.spec2tool.security.LocalJwtIssuer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives 'POST /convert' through the whole HTTP path, resource server included, against a local stand-in for the
+ * identity provider. Every request runs the mapper, since the conversion cache is disabled. Reports latency,
+ * throughput and GC pauses to 'target/load-result.json' and compares them with 'load/baseline.json'.
+ * <p>
+ * Run with {@code mvn -P load test}. Settings are system properties: 'load.threads', 'load.warmup',
+ * 'load.duration' (ISO-8601), 'load.tolerance' (allowed regression, e.g. 0.3) and 'load.update-baseline'.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spec2tool.cache.max-entries=0",
+        "spec2tool.quotas.max-concurrent=0",
+        "spec2tool.quotas.rate=0",
+        "spec2tool.warmup.enabled=false",
+        "logging.level.de.thm.spec2tool=WARN"
+})
+class ConversionLoadTest {
+
+    private static final Path BASELINE = Path.of("src/test/resources/load/baseline.json");
+    private static final Path RESULT = Path.of("target/load-result.json");
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private static LocalJwtIssuer issuer;
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void identityProvider(DynamicPropertyRegistry registry) throws Exception {
+        issuer = new LocalJwtIssuer();
+        registry.add("spring.security.oauth2.resourceserver.jwt.issuer-uri", issuer::issuerUri);
+        registry.add("spring.security.oauth2.resourceserver.jwt.jwk-set-uri", issuer::jwkSetUri);
+    }
+
+    @AfterAll
+    static void stopIdentityProvider() {
+        if (issuer != null) issuer.close();
+    }
+
+    @Test
+    void convertUnderLoad() throws Exception {
+        int threads = Integer.getInteger("load.threads", 8);
+        Duration warmup = Duration.parse(System.getProperty("load.warmup", "PT10S"));
+        Duration duration = Duration.parse(System.getProperty("load.duration", "PT30S"));
+        List<WeightedSpec> mix = specMix();
+        int totalWeight = mix.stream().mapToInt(WeightedSpec::weight).sum();
+
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        URI uri = URI.create("http://localhost:" + port + "/convert");
+        GcPauses gcPauses = new GcPauses();
+        AtomicInteger errors = new AtomicInteger();
+        Map<String, Latencies> latencies = new TreeMap<>();
+        mix.forEach(spec -> latencies.put(spec.name(), new Latencies()));
+
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long measureUntil = measureFrom + duration.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> drivers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            // One user per driver, like independent clients
+            String token = issuer.mint("load-" + t, warmup.plus(duration).plusMinutes(5));
+            drivers.add(executor.submit(() -> {
+                boolean measuring = false;
+                while (System.nanoTime() < measureUntil) {
+                    if (!measuring && System.nanoTime() >= measureFrom) {
+                        measuring = true;
+                        gcPauses.start();
+                    }
+                    WeightedSpec spec = pick(mix, totalWeight);
+                    HttpRequest request = HttpRequest.newBuilder(uri)
+                            .header("Authorization", "Bearer " + token)
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofByteArray(spec.body()))
+                            .build();
+                    long start = System.nanoTime();
+                    int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    long elapsed = System.nanoTime() - start;
+                    if (status != 200) errors.incrementAndGet();
+                    else if (measuring && start < measureUntil) latencies.get(spec.name()).add(elapsed);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> driver : drivers) driver.get();
+        executor.shutdown();
+        gcPauses.stop();
+
+        Latencies all = new Latencies();
+        latencies.values().forEach(all::addAll);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("threads", threads);
+        result.put("cpus", Runtime.getRuntime().availableProcessors());
+        result.put("durationSeconds", duration.toSeconds());
+        result.put("requests", all.size());
+        result.put("errors", errors.get());
+        result.put("throughput", round(all.size() / (duration.toNanos() / 1e9)));
+        result.put("p50Ms", all.percentileMillis(0.50));
+        result.put("p99Ms", all.percentileMillis(0.99));
+        result.put("maxMs", all.percentileMillis(1.0));
+        result.put("gcPauses", gcPauses.count());
+        result.put("gcPauseTotalMs", gcPauses.totalMillis());
+        result.put("gcPauseMaxMs", gcPauses.maxMillis());
+        Map<String, Object> perSpec = new LinkedHashMap<>();
+        latencies.forEach((name, values) -> perSpec.put(name, Map.of("requests", values.size(),
+                "p50Ms", values.percentileMillis(0.50), "p99Ms", values.percentileMillis(0.99))));
+        result.put("specs", perSpec);
+
+        Files.createDirectories(RESULT.getParent());
+        MAPPER.writeValue(RESULT.toFile(), result);
+        System.out.println("Load test result: " + MAPPER.writeValueAsString(result));
+
+        assertEquals(0, errors.get(), "Requests which were not answered with 200");
+        assertTrue(all.size() > 0, "No request finished within the measurement");
+        compareWithBaseline(result);
+    }
+
+    // Helper: fail on a regression of throughput or p99 beyond the tolerance, or write a new baseline if asked to
+    private static void compareWithBaseline(Map<String, Object> result) throws IOException {
+        if (Boolean.getBoolean("load.update-baseline")) {
+            Map<String, Object> baseline = new LinkedHashMap<>();
+            for (String key : List.of("threads", "cpus", "throughput", "p50Ms", "p99Ms")) baseline.put(key, result.get(key));
+            Files.createDirectories(BASELINE.getParent());
+            MAPPER.writeValue(BASELINE.toFile(), baseline);
+            System.out.println("Updated baseline " + BASELINE);
+            return;
+        }
+        Map<?, ?> baseline;
+        try (InputStream in = ConversionLoadTest.class.getResourceAsStream("/load/baseline.json")) {
+            if (in == null) return;
+            baseline = MAPPER.readValue(in, Map.class);
+        }
+        // Numbers of another setup are not comparable
+        if (!result.get("threads").equals(baseline.get("threads")) || !result.get("cpus").equals(baseline.get("cpus"))) {
+            System.out.println("Baseline was measured with " + baseline.get("threads") + " threads on " + baseline.get("cpus")
+                    + " CPUs, not comparing");
+            return;
+        }
+        double tolerance = Double.parseDouble(System.getProperty("load.tolerance", "0.3"));
+        double throughput = ((Number) result.get("throughput")).doubleValue();
+        double baselineThroughput = ((Number) baseline.get("throughput")).doubleValue();
+        double p99 = ((Number) result.get("p99Ms")).doubleValue();
+        double baselineP99 = ((Number) baseline.get("p99Ms")).doubleValue();
+        assertTrue(throughput >= baselineThroughput * (1 - tolerance),
+                "Throughput " + throughput + "/s is more than " + tolerance * 100 + "% below the baseline of "
+                        + baselineThroughput + "/s");
+        assertTrue(p99 <= baselineP99 * (1 + tolerance),
+                "p99 of " + p99 + " ms is more than " + tolerance * 100 + "% above the baseline of " + baselineP99 + " ms");
+    }
+
+    /**
+     * The OpenAPI 3 examples and the edge cases of the golden test, each as often as a typical small spec, and
+     * generated large specs now and then. Swagger 2.0 documents are left out, the mapper rejects them.
+     */
+    private static List<WeightedSpec> specMix() throws IOException {
+        List<WeightedSpec> mix = new ArrayList<>();
+        List<Path> documents;
+        try (Stream<Path> examples = Files.list(Path.of("examples"))) {
+            documents = new ArrayList<>(examples.filter(p -> p.toString().endsWith(".json")).sorted().toList());
+        }
+        documents.add(Path.of("src/test/resources/golden/edge_cases_openApi.json"));
+        for (Path document : documents) {
+            Map<?, ?> spec = JSON.readValue(document.toFile(), Map.class);
+            if (spec.containsKey("openapi")) mix.add(new WeightedSpec(document.getFileName().toString(), 10, body(spec)));
+        }
+        mix.add(new WeightedSpec("generated-100", 3, body(SyntheticSpecs.openApi(100, 4))));
+        mix.add(new WeightedSpec("generated-1000", 1, body(SyntheticSpecs.openApi(1000, 12))));
+        return mix;
+    }
+
+    private static byte[] body(Map<?, ?> spec) throws IOException {
+        return JSON.writeValueAsBytes(Map.of("format", "openapi", "spec", spec));
+    }
+
+    private static WeightedSpec pick(List<WeightedSpec> mix, int totalWeight) {
+        int n = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (WeightedSpec spec : mix) {
+            n -= spec.weight();
+            if (n < 0) return spec;
+        }
+        throw new IllegalStateException();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private record WeightedSpec(String name, int weight, byte[] body) {
+    }
+
+    private static final class Latencies {
+        private long[] nanos = new long[1024];
+        private int size;
+
+        synchronized void add(long value) {
+            if (size == nanos.length) nanos = Arrays.copyOf(nanos, size * 2);
+            nanos[size++] = value;
+        }
+
+        synchronized void addAll(Latencies other) {
+            for (int i = 0; i < other.size; i++) add(other.nanos[i]);
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized double percentileMillis(double percentile) {
+            if (size == 0) return 0;
+            long[] sorted = Arrays.copyOf(nanos, size);
+            Arrays.sort(sorted);
+            int index = Math.max(0, (int) Math.ceil(percentile * size) - 1);
+            return round(sorted[index] / 1e6);
+        }
+    }
+
+    /**
+     * Pauses reported by the collectors while the measurement runs. Client and server share the JVM, so these are
+     * the pauses of both.
+     */
+    private static final class GcPauses {
+        private final Queue<Long> pauses = new ConcurrentLinkedQueue<>();
+        private final NotificationListener listener = (notification, handback) -> {
+            if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) return;
+            GarbageCollectionNotificationInfo info =
+                    GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            // Concurrent cycles do not stop the application
+            if (!info.getGcName().contains("Concurrent")) pauses.add(info.getGcInfo().getDuration());
+        };
+        private boolean started;
+
+        synchronized void start() {
+            if (started) return;
+            started = true;
+            for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+                ((NotificationEmitter) bean).addNotificationListener(listener, null, null);
+            }
+        }
+
+        synchronized void stop() throws Exception {
+            if (!started) return;
+            for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+                ((NotificationEmitter) bean).removeNotificationListener(listener);
+            }
+        }
+
+        int count() {
+            return pauses.size();
+        }
+
+        long totalMillis() {
+            return pauses.stream().mapToLong(Long::longValue).sum();
+        }
+
+        long maxMillis() {
+            return pauses.stream().mapToLong(Long::longValue).max().orElse(0);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package de.thm.spec2tool.mapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.thm.spec2tool.exception.LimitExceededException;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Each limit must stop a conversion which exceeds it, and only that one, and name itself in the exception.
+ */
+class ConversionLimitsTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void rejectsTooManyOperations() {
+        OpenApiMapper mapper = mapper(new ConversionLimits(DataSize.ofBytes(0), 0, 10, 0, Duration.ZERO));
+
+        assertEquals(10, mapper.convert(SyntheticSpecs.openApi(10, 2)).tools().length);
+        assertLimit(ConversionLimits.OPERATIONS, () -> mapper.convert(SyntheticSpecs.openApi(11, 2)));
+    }
+
+    @Test
+    void rejectsTooDeeplyNestedDocuments() throws Exception {
+        OpenApiMapper mapper = mapper(new ConversionLimits(DataSize.ofBytes(0), 32, 0, 0, Duration.ZERO));
+
+        assertNotNull(mapper.convert(nested(28)));
+        Map<String, Object> deep = nested(40);
+        assertLimit(ConversionLimits.NESTING_DEPTH, () -> mapper.convert(deep));
+        String raw = MAPPER.writeValueAsString(deep);
+        assertLimit(ConversionLimits.NESTING_DEPTH, () -> mapper.convert(raw));
+    }
+
+    @Test
+    void rejectsTooManyReferenceSteps() {
+        OpenApiMapper mapper = mapper(new ConversionLimits(DataSize.ofBytes(0), 0, 0, 100, Duration.ZERO));
+
+        assertNotNull(mapper.convert(SyntheticSpecs.openApi(1, 2)));
+        assertLimit(ConversionLimits.REF_STEPS, () -> mapper.convert(SyntheticSpecs.openApi(100, 12)));
+    }
+
+    @Test
+    void rejectsConversionsExceedingTimeout() throws Exception {
+        // Parsing alone takes longer than a nanosecond, so the first check fails
+        OpenApiMapper mapper = mapper(new ConversionLimits(DataSize.ofBytes(0), 0, 0, 0, Duration.ofNanos(1)));
+
+        assertLimit(ConversionLimits.TIME, () -> mapper.convert(SyntheticSpecs.openApi(100, 4)));
+        String raw = MAPPER.writeValueAsString(SyntheticSpecs.openApi(100, 4));
+        assertLimit(ConversionLimits.TIME, () -> mapper.convert(raw));
+    }
+
+    private static OpenApiMapper mapper(ConversionLimits limits) {
+        return new OpenApiMapper(16, 0, 0, true, limits);
+    }
+
+    private static void assertLimit(String limit, Runnable conversion) {
+        LimitExceededException e = assertThrows(LimitExceededException.class, conversion::run);
+        assertEquals(limit, e.getLimit());
+        assertEquals(422, e.getStatusCode().value());
+        assertNotNull(e.getReason());
+    }
+
+    // Helper: a valid spec with an extension nested to the given depth, counted from the root object
+    private static Map<String, Object> nested(int depth) {
+        Object node = List.of();
+        for (int i = 3; i < depth; i++) node = List.of(node);
+        Map<String, Object> spec = new LinkedHashMap<>(SyntheticSpecs.openApi(1, 2));
+        spec.put("info", Map.of("title", "Nested API", "x-nested", node));
+        return spec;
+    }
+}
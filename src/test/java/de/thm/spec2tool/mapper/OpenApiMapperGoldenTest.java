@@ -0,0 +1,125 @@
+package de.thm.spec2tool.mapper;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
+import de.thm.spec2tool.dto.ToolDto;
+import de.thm.spec2tool.dto.ToolFilterDto;
+import de.thm.spec2tool.dto.ToolSelectorDto;
+import de.thm.spec2tool.dto.ToolSetDto;
+import de.thm.spec2tool.metrics.ConversionProfile;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The fast path and the full swagger parser must produce identical tool sets. Both are compared against golden
+ * files, which were produced by the full parser, from the posted map and from the raw document.
+ */
+class OpenApiMapperGoldenTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static OpenApiMapper fast;
+    private static OpenApiMapper swagger;
+
+    @BeforeAll
+    static void setUp() {
+        fast = new OpenApiMapper(16, 256, 0, true, ConversionLimits.NONE);
+        swagger = new OpenApiMapper(16, 256, 0, false, ConversionLimits.NONE);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        fast.shutdown();
+        swagger.shutdown();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"examples/json_placeholder_openApi.json", "src/test/resources/golden/edge_cases_openApi.json"})
+    void bothEnginesMatchGoldenFile(String file) throws IOException {
+        String raw = Files.readString(Path.of(file));
+        Map<String, Object> spec = MAPPER.readValue(raw, new TypeReference<>() {});
+        JsonNode golden = MAPPER.readTree(Path.of("src/test/resources/golden",
+                Path.of(file).getFileName().toString().replace(".json", ".tools.json")).toFile());
+
+        assertEquals(golden, tree(swagger.convert(spec)), "swagger, map");
+        assertEquals(golden, tree(swagger.convert(raw)), "swagger, raw");
+        assertEquals(golden, tree(fast.convert(spec)), "fast, map");
+        assertEquals(golden, tree(fast.convert(raw)), "fast, raw");
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4, 64})
+    void bothEnginesMatchOnSyntheticSpecs(int refDepth) throws IOException {
+        // Large enough to be converted in parallel
+        Map<String, Object> spec = SyntheticSpecs.openApi(600, refDepth);
+        String raw = MAPPER.writeValueAsString(spec);
+
+        JsonNode expected = tree(swagger.convert(spec));
+        assertEquals(expected, tree(fast.convert(spec)));
+        assertEquals(expected, tree(fast.convert(raw)));
+    }
+
+    @Test
+    void yamlFallsBackToSwagger() throws IOException {
+        Path file = Path.of("src/test/resources/golden/edge_cases_openApi.json");
+        String yaml = new YAMLMapper().writeValueAsString(MAPPER.readTree(file.toFile()));
+
+        assertEquals(tree(swagger.convert(yaml)), tree(fast.convert(yaml)));
+        assertEquals(MAPPER.readTree(Path.of("src/test/resources/golden/edge_cases_openApi.tools.json").toFile()),
+                tree(fast.convert(yaml)));
+    }
+
+    @Test
+    void bothEnginesApplyFilter() throws IOException {
+        String raw = Files.readString(Path.of("src/test/resources/golden/edge_cases_openApi.json"));
+        OperationFilter filter = OperationFilter.of(new ToolFilterDto(
+                new ToolSelectorDto(null, List.of("/items/**"), null, null),
+                new ToolSelectorDto(null, null, List.of("put", "options"), null)));
+
+        ToolSetDto fastTools = convert(fast, raw, filter);
+        assertEquals(tree(convert(swagger, raw, filter)), tree(fastTools));
+        assertEquals(List.of("GET", "PATCH", "HEAD", "TRACE", "POST"),
+                Arrays.stream(fastTools.tools()).map(ToolDto::requestMethod).toList());
+
+        filter = OperationFilter.of(new ToolFilterDto(new ToolSelectorDto(List.of("items"), null, null, null), null));
+        assertEquals(List.of("/items"), Arrays.stream(convert(fast, raw, filter).tools()).map(ToolDto::endpoint).toList());
+        assertThrows(IllegalArgumentException.class, () -> OperationFilter.of(
+                new ToolFilterDto(new ToolSelectorDto(null, null, List.of("fetch"), null), null)));
+    }
+
+    @Test
+    void swagger2IsRejectedByBothEngines() throws IOException {
+        String raw = Files.readString(Path.of("examples/petstore_openApi.json"));
+        Map<String, Object> spec = MAPPER.readValue(raw, new TypeReference<>() {});
+
+        assertThrows(IllegalArgumentException.class, () -> fast.convert(spec));
+        assertThrows(IllegalArgumentException.class, () -> fast.convert(raw));
+        assertThrows(IllegalArgumentException.class, () -> swagger.convert(spec));
+        assertThrows(IllegalArgumentException.class, () -> swagger.convert(raw));
+    }
+
+    private static ToolSetDto convert(OpenApiMapper mapper, String raw, OperationFilter filter) {
+        ToolSetCollector collector = new ToolSetCollector();
+        mapper.convert(raw, filter, collector, new ConversionProfile());
+        return collector.toToolSet();
+    }
+
+    private static JsonNode tree(ToolSetDto toolSet) {
+        return MAPPER.valueToTree(toolSet);
+    }
+}
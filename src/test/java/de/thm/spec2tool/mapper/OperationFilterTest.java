@@ -0,0 +1,45 @@
+package de.thm.spec2tool.mapper;
+
+import de.thm.spec2tool.dto.ToolFilterDto;
+import de.thm.spec2tool.dto.ToolSelectorDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The key of a filter is part of the cache key, store key and ETag of a tool set.
+ */
+class OperationFilterTest {
+
+    @Test
+    void sharesKeyOfEquivalentFilters() {
+        OperationFilter filter = include(new ToolSelectorDto(List.of("b", "a"), null, List.of("get", "POST"), null));
+        OperationFilter same = include(new ToolSelectorDto(List.of("a", "b", "a"), List.of(), List.of("post", "GET"),
+                null));
+
+        assertEquals(filter.key(), same.key());
+        assertEquals("all", OperationFilter.of(new ToolFilterDto(new ToolSelectorDto(null, null, null, null),
+                null)).key());
+    }
+
+    @Test
+    void keepsKeysOfDifferentFiltersApart() {
+        List<OperationFilter> filters = List.of(
+                include(new ToolSelectorDto(List.of("a, b"), null, null, null)),
+                include(new ToolSelectorDto(List.of("a", "b"), null, null, null)),
+                include(new ToolSelectorDto(List.of("a\", \"b"), null, null, null)),
+                include(new ToolSelectorDto(List.of("a]"), null, null, null)),
+                include(new ToolSelectorDto(null, List.of("a"), null, null)),
+                OperationFilter.of(new ToolFilterDto(null, new ToolSelectorDto(List.of("a"), null, null, null))),
+                OperationFilter.ALL);
+
+        assertEquals(filters.size(), filters.stream().map(OperationFilter::key).distinct().count(),
+                () -> filters.stream().map(OperationFilter::key).toList().toString());
+    }
+
+    private static OperationFilter include(ToolSelectorDto selector) {
+        return OperationFilter.of(new ToolFilterDto(selector, null));
+    }
+}
@@ -0,0 +1,110 @@
+package de.thm.spec2tool.mapper;
+
+import io.swagger.v3.oas.models.media.ObjectSchema;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.oas.models.media.StringSchema;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cyclic and shared $ref graphs: cycles are cut where they close, memoized components are only reused where they
+ * fit into the maximum schema depth.
+ */
+class SchemaInlinerTest {
+
+    private final Map<String, Schema<?>> components = new LinkedHashMap<>();
+
+    @Test
+    void cutsSelfReferenceAtCycle() {
+        components.put("Node", object(Map.of("value", new StringSchema(), "next", ref("Node"))));
+
+        Map<String, Object> node = inliner(16).inline(ref("Node"));
+
+        assertEquals("string", type(property(node, "value")));
+        // The reference back to Node is a stub without properties
+        assertEquals(Map.of("type", "object", "description", "string"), property(node, "next"));
+    }
+
+    @Test
+    void inlinesMutuallyRecursiveSchemas() {
+        components.put("A", object(Map.of("b", ref("B"))));
+        components.put("B", object(Map.of("a", ref("A"), "name", new StringSchema())));
+        SchemaInliner inliner = inliner(16);
+
+        Map<String, Object> a = inliner.inline(ref("A"));
+        Map<String, Object> b = property(a, "b");
+        assertEquals("string", type(property(b, "name")));
+        assertFalse(property(b, "a").containsKey("properties"));
+
+        // Cut nodes are not memoized, so B as root expands A once more
+        Map<String, Object> root = inliner.inline(ref("B"));
+        Map<String, Object> nested = property(root, "a");
+        assertTrue(nested.containsKey("properties"));
+        assertFalse(property(nested, "b").containsKey("properties"));
+    }
+
+    @Test
+    void reusesMemoizedSubtreeOnlyWithinMaxDepth() {
+        components.put("C2", object(Map.of("v", new StringSchema())));
+        components.put("C1", object(Map.of("c2", ref("C2"))));
+        Schema<?> shallow = object(Map.of("c1", ref("C1")));
+        Schema<?> alsoShallow = object(Map.of("other", ref("C1")));
+        Schema<?> deep = object(Map.of("x", object(Map.of("y", object(Map.of("c1", ref("C1")))))));
+
+        for (boolean deepFirst : new boolean[]{false, true}) {
+            SchemaInliner inliner = inliner(3);
+            Map<String, Object> deepNode = deepFirst ? inliner.inline(deep) : null;
+            Map<String, Object> shallowNode = inliner.inline(shallow);
+            if (!deepFirst) deepNode = inliner.inline(deep);
+
+            // At depth 1, C1 fits completely and is shared between both parents
+            Map<String, Object> c1 = property(shallowNode, "c1");
+            assertEquals("string", type(property(property(c1, "c2"), "v")));
+            assertSame(c1, property(inliner.inline(alsoShallow), "other"));
+
+            // At depth 3, C2 would be below the maximum depth, so the memoized C1 must not be reused
+            Map<String, Object> deepC1 = property(property(property(deepNode, "x"), "y"), "c1");
+            assertNotSame(c1, deepC1);
+            assertEquals(Map.of("type", "object", "description", "string"), property(deepC1, "c2"));
+            assertTrue(depth(deepNode) <= 4, "Schema below maximum depth: " + deepNode);
+        }
+    }
+
+    private SchemaInliner inliner(int maxDepth) {
+        return new SchemaInliner(components::get, maxDepth, ConversionLimits.NONE.start());
+    }
+
+    private static Schema<?> object(Map<String, ? extends Schema> properties) {
+        ObjectSchema schema = new ObjectSchema();
+        schema.setProperties(new LinkedHashMap<>(properties));
+        return schema;
+    }
+
+    private static Schema<?> ref(String name) {
+        return new Schema<>().$ref("#/components/schemas/" + name);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> property(Map<String, Object> node, String name) {
+        Map<String, Object> properties = (Map<String, Object>) node.get("properties");
+        assertNotNull(properties, "No properties in " + node);
+        return (Map<String, Object>) properties.get(name);
+    }
+
+    private static Object type(Map<String, Object> node) {
+        return node.get("type");
+    }
+
+    // Helper: levels of nested properties, stubs have none
+    @SuppressWarnings("unchecked")
+    private static int depth(Object node) {
+        if (!(node instanceof Map<?, ?> map) || !(map.get("properties") instanceof Map<?, ?> properties)) return 0;
+        int deepest = 0;
+        for (Object child : ((Map<String, Object>) properties).values()) deepest = Math.max(deepest, depth(child));
+        return deepest + 1;
+    }
+}
@@ -0,0 +1,101 @@
+package de.thm.spec2tool.mapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.thm.spec2tool.dto.ToolSetDto;
+import de.thm.spec2tool.metrics.ConversionProfile;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Equal schemas of different tool sets must be the same instances, without changing the output.
+ */
+class SchemaPoolTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final OpenApiMapper mapper = new OpenApiMapper(16, 0, 0, true, ConversionLimits.NONE);
+
+    @Test
+    void sharesSchemasAcrossToolSets() throws Exception {
+        SchemaPool pool = new SchemaPool(true);
+        ToolSetDto small = convert(50, pool);
+        ToolSetDto large = convert(100, pool);
+
+        for (int i = 0; i < small.tools().length; i++) {
+            assertSame(small.tools()[i].inputSchema(), large.tools()[i].inputSchema());
+        }
+        assertTrue(pool.internedNodes() > 0);
+        assertTrue(pool.savedBytes() > 0);
+        // The same tool set as without the pool
+        assertEquals(MAPPER.writeValueAsString(convert(100, new SchemaPool(false))), MAPPER.writeValueAsString(large));
+    }
+
+    @Test
+    void sharesSchemasOnlyWithinToolSetIfDisabled() {
+        SchemaPool pool = new SchemaPool(false);
+        ToolSetDto small = convert(50, pool);
+        ToolSetDto large = convert(100, pool);
+
+        assertNotSame(small.tools()[0].inputSchema(), large.tools()[0].inputSchema());
+        assertSame(small, pool.intern(small));
+        assertEquals(0, pool.size());
+    }
+
+    @Test
+    void sharesSchemasOfStoredToolSets() throws Exception {
+        SchemaPool pool = new SchemaPool(true);
+        ToolSetDto converted = convert(50, pool);
+        ToolSetDto stored = MAPPER.readValue(MAPPER.writeValueAsBytes(converted), ToolSetDto.class);
+        assertNotSame(converted.tools()[0].inputSchema(), stored.tools()[0].inputSchema());
+
+        ToolSetDto interned = pool.intern(stored);
+        for (int i = 0; i < converted.tools().length; i++) {
+            assertSame(converted.tools()[i].inputSchema(), interned.tools()[i].inputSchema());
+        }
+        assertEquals(MAPPER.writeValueAsString(converted), MAPPER.writeValueAsString(interned));
+    }
+
+    @Test
+    void comparesChildrenByIdentity() {
+        SchemaPool pool = new SchemaPool(true);
+        String type = pool.intern(new String("string"));
+        Map<String, Object> leaf = pool.intern(new HashMap<>(Map.of("type", type)));
+        Map<String, Object> copy = new HashMap<>(Map.of("type", new String("string")));
+        assertSame(leaf, pool.intern(copy));
+
+        Map<String, Object> parent = pool.intern(new LinkedHashMap<>(Map.of("items", leaf)));
+        // Equal, but its child is not the pooled one
+        Map<String, Object> other = new LinkedHashMap<>(Map.of("items", new HashMap<>(Map.of("type", "string"))));
+        assertNotSame(parent, pool.intern(other));
+        assertSame(parent, pool.intern(new LinkedHashMap<>(Map.of("items", leaf))));
+        assertNotSame(pool.intern(List.of()), pool.intern(Map.of()));
+    }
+
+    @Test
+    void dropsNodesNoToolSetRefersTo() throws InterruptedException {
+        SchemaPool pool = new SchemaPool(true);
+        convert(100, pool);
+        int size = pool.size();
+        assertTrue(size > 0);
+        for (int i = 0; i < 50 && pool.size() >= size; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertTrue(pool.size() < size, "Pool kept " + pool.size() + " of " + size + " unreferenced nodes");
+    }
+
+    private ToolSetDto convert(int operations, SchemaPool pool) {
+        ToolSetOptimizer optimizer = new ToolSetOptimizer(true, 20, 1000, DataSize.ofKilobytes(256), pool);
+        ToolSetCollector collector = new ToolSetCollector();
+        mapper.convert(SyntheticSpecs.openApi(operations, 2), optimizer.sink(collector, new ConversionProfile()),
+                new ConversionProfile());
+        return collector.toToolSet();
+    }
+}
@@ -0,0 +1,226 @@
+package de.thm.spec2tool.mapper;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.thm.spec2tool.dto.ToolDto;
+import de.thm.spec2tool.dto.ToolSetDto;
+import de.thm.spec2tool.metrics.ConversionProfile;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Every budget of the output stage, on hand-written schemas. The input tool set must never change, since its
+ * nodes are shared with the mapper and other tool sets.
+ */
+class ToolSetOptimizerTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void dropsFillerDescriptions() {
+        ToolSetDto toolSet = toolSet(tool("getUser", object(
+                "id", string("string (path)"),
+                "name", string("Name of the user"),
+                "note", string(" "),
+                "tag", string("string"))));
+
+        ConversionProfile profile = new ConversionProfile();
+        Map<String, Object> schema = optimize(optimizer(true, 0, 0, 0, false), toolSet, profile)[0].inputSchema();
+
+        assertEquals(Map.of("type", "string"), property(schema, "id"));
+        assertEquals(Map.of("type", "string", "description", "Name of the user"), property(schema, "name"));
+        assertEquals(Map.of("type", "string"), property(schema, "note"));
+        assertEquals(Map.of("type", "string"), property(schema, "tag"));
+        assertEquals(Map.of("description", 3), profile.pruned());
+    }
+
+    @Test
+    void keepsToolsWithinBudgetAsTheyAre() {
+        ToolSetDto toolSet = toolSet(tool("getUser", object("id", string("string (path)"))));
+
+        ConversionProfile profile = new ConversionProfile();
+        ToolDto[] tools = optimize(optimizer(false, 0, 0, 0, false), toolSet, profile);
+
+        assertSame(toolSet.tools()[0], tools[0]);
+        assertEquals(Map.of(), profile.pruned());
+    }
+
+    @Test
+    void cutsSchemasBelowMaxDepth() {
+        // Levels: root 0, address 1, street 2, name 3
+        ToolSetDto toolSet = toolSet(tool("createUser", object(
+                "address", object("street", object("name", string("Street name"))))));
+
+        ConversionProfile profile = new ConversionProfile();
+        Map<String, Object> schema = optimize(optimizer(true, 2, 0, 0, false), toolSet, profile)[0].inputSchema();
+
+        Map<?, ?> address = property(schema, "address");
+        assertEquals(List.of("street"), address.get("required"));
+        assertEquals(Map.of("type", "object", "description", "Object"), property(address, "street"));
+        assertEquals(Map.of("depth", 1), profile.pruned());
+    }
+
+    @Test
+    void dropsPropertiesBeyondBudgetButKeepsRequiredOnes() {
+        Map<String, Object> schema = object(
+                "a", string("A"), "b", string("B"), "c", string("C"), "d", string("D"), "e", string("E"));
+        schema.put("required", List.of("a", "e"));
+        ToolSetDto toolSet = toolSet(tool("createItem", schema));
+
+        ConversionProfile profile = new ConversionProfile();
+        Map<String, Object> pruned = optimize(optimizer(true, 0, 3, 0, false), toolSet, profile)[0].inputSchema();
+
+        assertEquals(List.of("a", "b", "e"), List.copyOf(((Map<?, ?>) pruned.get("properties")).keySet()));
+        assertEquals(List.of("a", "e"), pruned.get("required"));
+        assertEquals(Map.of("properties", 2), profile.pruned());
+    }
+
+    @Test
+    void cutsSchemasToDeepestLevelWithinByteBudget() {
+        // Only the leaf at level 4 is large, so the second pass cuts at level 3 and keeps levels 0 to 2 as they are
+        ToolSetDto toolSet = toolSet(tool("createUser", object(
+                "a", object("b", object("c", object("d", string("x".repeat(4096))))))));
+
+        ConversionProfile profile = new ConversionProfile();
+        Map<String, Object> schema = optimize(optimizer(true, 0, 0, 1024, false), toolSet, profile)[0].inputSchema();
+
+        Map<?, ?> b = property(property(schema, "a"), "b");
+        assertEquals(List.of("c"), b.get("required"));
+        assertEquals(Map.of("type", "object", "description", "Object"), property(b, "c"));
+        assertEquals(Map.of("depth", 1), profile.pruned());
+        assertTrue(json(schema).toString().length() < 1024);
+    }
+
+    @Test
+    void countsPrunedNodesOfSecondPassOnly() {
+        // The first pass drops both filler descriptions as well, but the counts must match the tool set returned
+        ToolSetDto toolSet = toolSet(tool("createUser", object(
+                "id", string("string"),
+                "a", object("b", object("c", object("d", string("x".repeat(4096))))),
+                "tag", string("string"))));
+
+        ConversionProfile profile = new ConversionProfile();
+        Map<String, Object> schema = optimize(optimizer(true, 0, 0, 1024, false), toolSet, profile)[0].inputSchema();
+
+        assertEquals(Map.of("description", 2, "depth", 1), profile.pruned());
+        assertEquals(Map.of("type", "string"), property(schema, "id"));
+        assertEquals(List.of("id", "a", "tag"), schema.get("required"));
+    }
+
+    @Test
+    void keepsToolOrderAndInputWhilePruning() {
+        ToolSetDto toolSet = toolSet(
+                tool("listUsers", object("limit", string("string"))),
+                tool("createUser", object("a", object("b", object("c", object("d", string("x".repeat(4096))))))),
+                tool("noInput", null),
+                tool("getUser", object("id", string("string (path)"))));
+        JsonNode before = json(toolSet);
+
+        ToolDto[] tools = optimize(optimizer(true, 2, 1, 1024, false), toolSet, new ConversionProfile());
+
+        assertEquals(List.of("listUsers", "createUser", "noInput", "getUser"),
+                Arrays.stream(tools).map(ToolDto::name).toList());
+        assertNull(tools[2].inputSchema());
+        assertNotEquals(before, json(new ToolSetDto(toolSet.name(), toolSet.description(), tools)));
+        assertEquals(before, json(toolSet));
+    }
+
+    @Test
+    void internsEqualSubtreesWithinToolSet() throws Exception {
+        ToolSetDto toolSet = toolSet(
+                tool("createUser", object("address", object("street", string("Street")))),
+                tool("updateUser", object("address", object("street", string("Street")))));
+        assertNotSame(toolSet.tools()[0].inputSchema(), toolSet.tools()[1].inputSchema());
+
+        ConversionProfile profile = new ConversionProfile();
+        ToolDto[] tools = optimize(optimizer(true, 0, 0, 0, false), toolSet, profile);
+
+        assertSame(tools[0].inputSchema(), tools[1].inputSchema());
+        assertTrue(profile.getInterned() > 0);
+        assertEquals(Map.of(), profile.pruned());
+        assertEquals(MAPPER.writeValueAsString(toolSet), MAPPER.writeValueAsString(
+                new ToolSetDto(toolSet.name(), toolSet.description(), tools)));
+    }
+
+    @Test
+    void internsEqualSubtreesAcrossToolSetsWithPool() {
+        ToolSetOptimizer optimizer = optimizer(true, 0, 0, 0, true);
+        ToolDto[] first = optimize(optimizer, toolSet(tool("getUser", object("id", string("Id")))),
+                new ConversionProfile());
+
+        ConversionProfile profile = new ConversionProfile();
+        ToolDto[] second = optimize(optimizer, toolSet(tool("getUser", object("id", string("Id")))), profile);
+
+        assertSame(first[0].inputSchema(), second[0].inputSchema());
+        assertTrue(profile.getInterned() > 0);
+    }
+
+    @Test
+    void internsOnlyWithinToolSetWithoutPool() {
+        ToolSetOptimizer optimizer = optimizer(true, 0, 0, 0, false);
+        ToolDto[] first = optimize(optimizer, toolSet(tool("getUser", object("id", string("Id")))),
+                new ConversionProfile());
+        ToolDto[] second = optimize(optimizer, toolSet(tool("getUser", object("id", string("Id")))),
+                new ConversionProfile());
+
+        assertNotSame(first[0].inputSchema(), second[0].inputSchema());
+        assertEquals(first[0].inputSchema(), second[0].inputSchema());
+    }
+
+    // Helper: the tools of the optimized tool set, which must leave the input as it was
+    private static ToolDto[] optimize(ToolSetOptimizer optimizer, ToolSetDto toolSet, ConversionProfile profile) {
+        JsonNode before = json(toolSet);
+        ToolSetDto optimized = optimizer.optimize(toolSet, profile);
+        assertEquals(before, json(toolSet), "Input tool set was modified");
+        assertEquals(toolSet.name(), optimized.name());
+        return optimized.tools();
+    }
+
+    private static ToolSetOptimizer optimizer(boolean dropFiller, int maxDepth, int maxProperties, long maxBytes,
+                                              boolean sharedPool) {
+        return new ToolSetOptimizer(dropFiller, maxDepth, maxProperties, DataSize.ofBytes(maxBytes),
+                new SchemaPool(sharedPool));
+    }
+
+    private static ToolSetDto toolSet(ToolDto... tools) {
+        return new ToolSetDto("Users", "User API", tools);
+    }
+
+    private static ToolDto tool(String name, Map<String, Object> inputSchema) {
+        return new ToolDto(name, name, "POST", "http://localhost/users", inputSchema);
+    }
+
+    // Helper: an object schema requiring all of its properties, given as name and schema pairs
+    private static Map<String, Object> object(Object... properties) {
+        Map<String, Object> props = new LinkedHashMap<>();
+        for (int i = 0; i < properties.length; i += 2) props.put((String) properties[i], properties[i + 1]);
+        Map<String, Object> schema = new LinkedHashMap<>();
+        schema.put("type", "object");
+        schema.put("description", "Object");
+        schema.put("properties", props);
+        schema.put("required", List.copyOf(props.keySet()));
+        return schema;
+    }
+
+    private static Map<String, Object> string(String description) {
+        Map<String, Object> schema = new LinkedHashMap<>();
+        schema.put("type", "string");
+        schema.put("description", description);
+        return schema;
+    }
+
+    private static Map<?, ?> property(Map<?, ?> schema, String name) {
+        return (Map<?, ?>) ((Map<?, ?>) schema.get("properties")).get(name);
+    }
+
+    private static JsonNode json(Object value) {
+        return MAPPER.valueToTree(value);
+    }
+}
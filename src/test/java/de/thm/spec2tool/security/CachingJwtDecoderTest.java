@@ -0,0 +1,160 @@
+package de.thm.spec2tool.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Decoder against a local stand-in for the JWK endpoint of the identity provider.
+ */
+class CachingJwtDecoderTest {
+
+    private static final String ISSUER = "http://localhost/realms/test";
+
+    private final AtomicInteger jwkRequests = new AtomicInteger();
+    private HttpServer server;
+    private RSAKey key;
+    private String jwkSetUri;
+    private JwtDecoderConfig config;
+    private JWKSource<SecurityContext> jwkSource;
+    private CachingJwtDecoder decoder;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        key = new RSAKeyGenerator(2048).keyID("test").generate();
+        byte[] jwks = new JWKSet(key.toPublicJWK()).toString().getBytes(StandardCharsets.UTF_8);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/certs", exchange -> {
+            jwkRequests.incrementAndGet();
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, jwks.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(jwks);
+            }
+        });
+        server.start();
+
+        jwkSetUri = "http://localhost:" + server.getAddress().getPort() + "/certs";
+        config = new JwtDecoderConfig();
+        jwkSource = config.jwkSource(jwkSetUri, Duration.ofMinutes(5));
+        decoder = config.jwtDecoder(jwkSource, ISSUER, 100, Duration.ofMinutes(5), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        ((Closeable) jwkSource).close();
+        server.stop(0);
+    }
+
+    @Test
+    void jwkSetIsPrefetched() throws Exception {
+        assertEquals(0, jwkRequests.get(), "no fetch before the application is ready");
+        config.jwkPrefetch(jwkSource, jwkSetUri, new SimpleAsyncTaskExecutor("jwk-prefetch-")).onApplicationEvent(ready());
+        awaitPrefetch();
+        decoder.decode(token(key, Instant.now().plusSeconds(300)));
+        assertEquals(1, jwkRequests.get(), "no fetch on the request path");
+    }
+
+    @Test
+    void validatedTokensAreCached() throws Exception {
+        String token = token(key, Instant.now().plusSeconds(300));
+
+        Jwt first = decoder.decode(token);
+        Jwt second = decoder.decode(token);
+
+        assertSame(first, second);
+        assertEquals("alice", second.getClaimAsString("preferred_username"));
+        assertEquals(1, decoder.hits());
+        assertEquals(1, decoder.misses());
+    }
+
+    @Test
+    void cachedTokensExpireWithTheToken() throws Exception {
+        // Still accepted by the validators, which allow 60s of clock skew
+        String token = token(key, Instant.now().plusSeconds(1));
+        decoder.decode(token);
+        Thread.sleep(1100);
+
+        decoder.decode(token);
+        assertEquals(0, decoder.hits());
+        assertEquals(2, decoder.misses());
+    }
+
+    @Test
+    void invalidTokensAreNotCached() throws Exception {
+        RSAKey otherKey = new RSAKeyGenerator(2048).keyID("test").generate();
+        String forged = token(otherKey, Instant.now().plusSeconds(300));
+        String expired = token(key, Instant.now().minusSeconds(300));
+
+        assertThrows(JwtException.class, () -> decoder.decode(forged));
+        assertThrows(JwtException.class, () -> decoder.decode(forged));
+        assertThrows(JwtException.class, () -> decoder.decode(expired));
+        assertEquals(0, decoder.size());
+        assertEquals(0, decoder.hits());
+    }
+
+    @Test
+    void unreachableJwkSetDoesNotFailStartup() throws Exception {
+        server.stop(0);
+        JWKSource<SecurityContext> unreachable = config.jwkSource(jwkSetUri, Duration.ofMinutes(5));
+        CachingJwtDecoder unavailable = config.jwtDecoder(unreachable, ISSUER, 100, Duration.ofMinutes(5),
+                new SimpleMeterRegistry());
+        config.jwkPrefetch(unreachable, jwkSetUri, new SyncTaskExecutor()).onApplicationEvent(ready());
+
+        assertThrows(JwtException.class, () -> unavailable.decode(token(key, Instant.now().plusSeconds(300))));
+        ((Closeable) unreachable).close();
+    }
+
+    private static ApplicationReadyEvent ready() {
+        return new ApplicationReadyEvent(new SpringApplication(), new String[0], null, Duration.ZERO);
+    }
+
+    private void awaitPrefetch() throws InterruptedException {
+        for (int i = 0; i < 100 && jwkRequests.get() == 0; i++) Thread.sleep(50);
+        assertEquals(1, jwkRequests.get());
+    }
+
+    private static String token(RSAKey signingKey, Instant expiresAt) throws JOSEException {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer(ISSUER)
+                .subject("alice")
+                .claim("preferred_username", "alice")
+                .issueTime(new Date())
+                .expirationTime(Date.from(expiresAt))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(signingKey.getKeyID()).build(), claims);
+        jwt.sign(new RSASSASigner(signingKey));
+        return jwt.serialize();
+    }
+}
@@ -0,0 +1,83 @@
+package de.thm.spec2tool.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Stand-in for the identity provider: serves a JWK set on localhost and mints tokens signed with its key, so the
+ * resource server can be run without Keycloak.
+ */
+public class LocalJwtIssuer implements AutoCloseable {
+
+    private final RSAKey key;
+    private final HttpServer server;
+
+    public LocalJwtIssuer() throws IOException, JOSEException {
+        key = new RSAKeyGenerator(2048).keyID(UUID.randomUUID().toString()).generate();
+        byte[] jwks = new JWKSet(key.toPublicJWK()).toString().getBytes(StandardCharsets.UTF_8);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/certs", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, jwks.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(jwks);
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * @return Value for 'spring.security.oauth2.resourceserver.jwt.issuer-uri'.
+     */
+    public String issuerUri() {
+        return "http://localhost:" + server.getAddress().getPort() + "/realms/local";
+    }
+
+    /**
+     * @return Value for 'spring.security.oauth2.resourceserver.jwt.jwk-set-uri'.
+     */
+    public String jwkSetUri() {
+        return "http://localhost:" + server.getAddress().getPort() + "/certs";
+    }
+
+    /**
+     * @param username Value of the 'preferred_username' claim.
+     * @param validity Time until the token expires.
+     * @return Signed token.
+     */
+    public String mint(String username, Duration validity) throws JOSEException {
+        Instant now = Instant.now();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer(issuerUri())
+                .subject(username)
+                .claim("preferred_username", username)
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plus(validity)))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(), claims);
+        jwt.sign(new RSASSASigner(key));
+        return jwt.serialize();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,69 @@
+package de.thm.spec2tool.security;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Only the probes are public; metrics require a token like the API itself.
+ */
+@AutoConfigureObservability(tracing = false)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spec2tool.warmup.enabled=false",
+        "logging.level.de.thm.spec2tool=WARN"
+})
+class SecurityConfigTest {
+
+    private static final HttpClient CLIENT = HttpClient.newHttpClient();
+
+    private static LocalJwtIssuer issuer;
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void identityProvider(DynamicPropertyRegistry registry) throws Exception {
+        issuer = new LocalJwtIssuer();
+        registry.add("spring.security.oauth2.resourceserver.jwt.issuer-uri", issuer::issuerUri);
+        registry.add("spring.security.oauth2.resourceserver.jwt.jwk-set-uri", issuer::jwkSetUri);
+    }
+
+    @AfterAll
+    static void stopIdentityProvider() {
+        if (issuer != null) issuer.close();
+    }
+
+    @Test
+    void probesArePublic() throws Exception {
+        assertEquals(200, get("/actuator/health/liveness", null).statusCode());
+        assertEquals(200, get("/actuator/health/readiness", null).statusCode());
+    }
+
+    @Test
+    void metricsRequireToken() throws Exception {
+        assertEquals(401, get("/actuator/prometheus", null).statusCode());
+        assertEquals(401, get("/actuator/metrics", null).statusCode());
+
+        HttpResponse<String> scrape = get("/actuator/prometheus", issuer.mint("scraper", Duration.ofMinutes(5)));
+        assertEquals(200, scrape.statusCode());
+        assertTrue(scrape.body().contains("spec2tool_cache_size"));
+    }
+
+    private HttpResponse<String> get(String path, String token) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path));
+        if (token != null) request.header("Authorization", "Bearer " + token);
+        return CLIENT.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,196 @@
+package de.thm.spec2tool.security;
+
+import de.thm.spec2tool.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserQuotasTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void limitsConcurrentConversionsPerUser() {
+        UserQuotas quotas = new UserQuotas(2, 0, 0, 0, 16, registry);
+        UserQuotas.Permit first = quotas.acquire("alice");
+        UserQuotas.Permit second = quotas.acquire("alice");
+
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class, () -> quotas.acquire("alice"));
+        assertEquals(429, e.getStatusCode().value());
+        assertNotNull(e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        // Other users are not affected
+        quotas.acquire("bob").close();
+
+        first.close();
+        first.close();
+        assertEquals(1, quotas.running("alice"));
+        quotas.acquire("alice").close();
+        second.close();
+        assertEquals(0, quotas.running("alice"));
+        assertEquals(1.0, rejected("concurrency"));
+    }
+
+    @Test
+    void limitsRateWithBurst() {
+        UserQuotas quotas = new UserQuotas(0, 1, 3, 0, 16, registry);
+        for (int i = 0; i < 3; i++) quotas.acquire("alice").close();
+
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class, () -> quotas.acquire("alice"));
+        assertEquals("1", e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(0, quotas.running("alice"));
+        assertEquals(1.0, rejected("rate"));
+    }
+
+    @Test
+    void batchCountsEachConversionAgainstRate() {
+        UserQuotas quotas = new UserQuotas(0, 1, 5, 0, 16, registry);
+        quotas.acquire("alice", 4).close();
+        quotas.acquire("alice").close();
+        assertThrows(TooManyRequestsException.class, () -> quotas.acquire("alice"));
+        // A batch larger than the burst costs a full bucket instead of being rejected forever
+        quotas.acquire("bob", 100).close();
+    }
+
+    @Test
+    void neverAdmitsMoreThanLimitUnderContention() throws InterruptedException {
+        UserQuotas quotas = new UserQuotas(3, 0, 0, 0, 16, registry);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            tasks.add(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < 1000; j++) {
+                        try (UserQuotas.Permit permit = quotas.acquire("alice")) {
+                            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                            running.decrementAndGet();
+                        } catch (TooManyRequestsException e) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        tasks.forEach(executor::execute);
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertTrue(maxRunning.get() <= 3, "At most 3 conversions at once, but saw " + maxRunning.get());
+        assertEquals(0, quotas.running("alice"));
+    }
+
+    @Test
+    void dropsIdleUsers() {
+        UserQuotas quotas = new UserQuotas(1, 0, 0, 2, 16, registry);
+        UserQuotas.Permit busy = quotas.acquire("alice");
+        quotas.acquire("bob").close();
+        quotas.acquire("carol").close();
+
+        // The third user triggers the sweep, which drops bob but keeps alice and carol, who were running
+        assertEquals(2.0, registry.get("spec2tool.quota.users").gauge().value());
+        assertEquals(1.0, running());
+        assertThrows(TooManyRequestsException.class, () -> quotas.acquire("alice"));
+        busy.close();
+        assertEquals(0.0, running());
+    }
+
+    @Test
+    void keepsUsersWhoseBucketIsNotFull() {
+        UserQuotas quotas = new UserQuotas(0, 1, 2, 1, 16, registry);
+        quotas.acquire("alice", 2).close();
+        // Sweeps on every new user, but alice must not get a fresh burst
+        quotas.acquire("bob").close();
+        quotas.acquire("carol").close();
+
+        assertThrows(TooManyRequestsException.class, () -> quotas.acquire("alice"));
+    }
+
+    @Test
+    void neverAdmitsMoreThanLimitWhileSweeping() throws InterruptedException {
+        // Every new user sweeps, while alice is idle now and then and may be dropped between lookup and start
+        UserQuotas quotas = new UserQuotas(1, 0, 0, 1, 16, registry);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger users = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(12);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < 12; i++) {
+            boolean alice = i < 4;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < 5000; j++) {
+                        if (!alice) {
+                            quotas.acquire("user" + users.incrementAndGet()).close();
+                            continue;
+                        }
+                        try (UserQuotas.Permit permit = quotas.acquire("alice")) {
+                            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                            Thread.yield();
+                            running.decrementAndGet();
+                        } catch (TooManyRequestsException e) {
+                            // Expected while another one runs
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(1, maxRunning.get(), "At most 1 conversion at once");
+        assertEquals(0, quotas.running("alice"));
+        assertEquals(0.0, running());
+    }
+
+    @Test
+    void exportsUsersInBuckets() {
+        UserQuotas quotas = new UserQuotas(1, 0, 0, 0, 4, registry);
+        for (int i = 0; i < 100; i++) quotas.acquire("user" + i).close();
+        UserQuotas.Permit busy = quotas.acquire("alice");
+        assertThrows(TooManyRequestsException.class, () -> quotas.acquire("alice"));
+
+        assertTrue(registry.getMeters().stream().allMatch(m -> m.getId().getTag("user") == null));
+        // One gauge and one counter per reason for each bucket, however many users there are
+        assertEquals(4, registry.find("spec2tool.quota.running").gauges().size());
+        assertEquals(8, registry.find("spec2tool.quota.rejected").counters().size());
+        String bucket = Integer.toString(Math.floorMod("alice".hashCode(), 4));
+        assertEquals(1.0, registry.get("spec2tool.quota.running").tag("bucket", bucket).gauge().value());
+        assertEquals(1.0, registry.get("spec2tool.quota.rejected").tag("bucket", bucket)
+                .tag("reason", "concurrency").counter().count());
+        busy.close();
+        assertEquals(0.0, running());
+    }
+
+    // Helper: sums over all buckets
+    private double running() {
+        return registry.find("spec2tool.quota.running").gauges().stream().mapToDouble(Gauge::value).sum();
+    }
+
+    private double rejected(String reason) {
+        return registry.find("spec2tool.quota.rejected").tag("reason", reason).counters().stream()
+                .mapToDouble(Counter::count).sum();
+    }
+}
@@ -0,0 +1,122 @@
+package de.thm.spec2tool.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The warm-up ends once its iterations are stable or its budget ran out, and the instance becomes ready in any case,
+ * also if the warm-up failed.
+ */
+@SpringBootTest(properties = "spec2tool.warmup.enabled=false")
+class ConversionWarmupTest {
+
+    private static final String SPEC = """
+            {"openapi": "3.0.3", "info": {"title": "Warm-up API", "version": "1"},
+             "servers": [{"url": "https://api.example.com"}],
+             "paths": {"/pets": {"get": {"operationId": "listPets", "responses": {"200": {"description": "OK"}}}}}}
+            """;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Autowired
+    private ConversionServiceImpl conversionService;
+
+    @Autowired
+    private WarmupHealthIndicator warmupHealthIndicator;
+
+    @Test
+    void readyRightAwayIfDisabled() {
+        assertEquals(Status.UP, warmupHealthIndicator.health().getStatus());
+    }
+
+    @Test
+    void outOfServiceUntilFinished() throws InterruptedException {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch loaded = new CountDownLatch(1);
+        ConversionWarmup warmup = warmup(Duration.ofMinutes(1), 0.5, () -> {
+            loading.countDown();
+            loaded.await();
+            return Map.of("pets", SPEC);
+        });
+        WarmupHealthIndicator health = new WarmupHealthIndicator(warmup);
+
+        warmup.start();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        assertEquals(Status.OUT_OF_SERVICE, health.health().getStatus());
+        assertFalse(warmup.isFinished());
+
+        loaded.countDown();
+        awaitFinished(warmup);
+        assertEquals(Status.UP, health.health().getStatus());
+        assertEquals(warmup.getIterations(), health.health().getDetails().get("iterations"));
+    }
+
+    @Test
+    void endsOnceIterationsAreStable() {
+        // Any two windows are within a tolerance of 10 times their median
+        ConversionWarmup warmup = warmup(Duration.ofMinutes(1), 10, () -> Map.of("pets", SPEC));
+        warmup.run();
+
+        assertTrue(warmup.isFinished());
+        assertTrue(warmup.isStable());
+        assertEquals(4, warmup.getIterations());
+        assertEquals(4.0, registry.get("spec2tool.warmup.iterations").gauge().value());
+    }
+
+    @Test
+    void endsOnceBudgetRanOut() {
+        // No two windows have exactly the same median
+        ConversionWarmup warmup = warmup(Duration.ofMillis(300), 0, () -> Map.of("pets", SPEC));
+        warmup.run();
+
+        assertTrue(warmup.isFinished());
+        assertFalse(warmup.isStable());
+        assertTrue(warmup.getIterations() > 0);
+        assertTrue(warmup.getDuration().compareTo(Duration.ofMillis(300)) >= 0, warmup.getDuration().toString());
+    }
+
+    @Test
+    void readyAfterFailedWarmup() {
+        ConversionWarmup unreadable = warmup(Duration.ofMinutes(1), 10, () -> {
+            throw new IOException("No specs");
+        });
+        unreadable.run();
+        assertEquals(Status.UP, new WarmupHealthIndicator(unreadable).health().getStatus());
+        assertEquals(0, unreadable.getIterations());
+
+        ConversionWarmup invalid = warmup(Duration.ofMinutes(1), 10, () -> Map.of("broken", "{\"openapi\": "));
+        invalid.run();
+        assertTrue(invalid.isFinished());
+        assertFalse(invalid.isStable());
+        assertEquals(Status.UP, new WarmupHealthIndicator(invalid).health().getStatus());
+    }
+
+    @Test
+    void convertsExampleAndGeneratedSpecs() {
+        ConversionWarmup warmup = new ConversionWarmup(conversionService, true, Duration.ofMinutes(1), 2, 10, registry);
+        warmup.run();
+
+        assertTrue(warmup.isStable(), "Warm-up failed after " + warmup.getIterations() + " iterations");
+    }
+
+    private ConversionWarmup warmup(Duration budget, double tolerance, Callable<Map<String, String>> specs) {
+        return new ConversionWarmup(conversionService, true, budget, 2, tolerance, registry, specs);
+    }
+
+    private static void awaitFinished(ConversionWarmup warmup) throws InterruptedException {
+        for (int i = 0; i < 100 && !warmup.isFinished(); i++) Thread.sleep(50);
+        assertTrue(warmup.isFinished());
+    }
+}
@@ -0,0 +1,177 @@
+package de.thm.spec2tool.service;
+
+import de.thm.spec2tool.cache.ConversionCache;
+import de.thm.spec2tool.cache.ToolRegistry;
+import de.thm.spec2tool.cache.ToolSetStore;
+import de.thm.spec2tool.dto.ToolDto;
+import de.thm.spec2tool.dto.ToolSetDeltaDto;
+import de.thm.spec2tool.mapper.ConversionLimits;
+import de.thm.spec2tool.mapper.OpenApiMapper;
+import de.thm.spec2tool.mapper.SchemaPool;
+import de.thm.spec2tool.mapper.ToolSetOptimizer;
+import de.thm.spec2tool.metrics.ConversionMetrics;
+import de.thm.spec2tool.metrics.ConversionProfile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A delta must report exactly the tools whose operation was added, changed or removed, no matter whether the path
+ * item itself or a component it references changed.
+ */
+class DeltaConversionServiceImplTest {
+
+    private final DeltaConversionServiceImpl service = service(16);
+
+    @Test
+    void firstVersionReportsAllToolsAsAdded() throws Exception {
+        ToolSetDeltaDto delta = convert(spec(paths(), schemas()), null, false);
+
+        assertNull(delta.previous());
+        // Tools of a path come in the order of the HTTP methods of the parser, POST before GET
+        assertEquals(List.of("add_pet", "list_pets", "add_owner", "list_stores"), names(delta.added()));
+        assertTrue(delta.changed().isEmpty());
+        assertTrue(delta.removed().isEmpty());
+        assertNull(delta.toolSet());
+    }
+
+    @Test
+    void reportsAddedChangedAndRemovedPaths() throws Exception {
+        ToolSetDeltaDto first = convert(spec(paths(), schemas()), null, false);
+
+        Map<String, Object> paths = paths();
+        paths.remove("/owners");
+        paths.put("/stores", Map.of("get", operation("List all stores", null)));
+        paths.put("/toys", Map.of("get", operation("List toys", null)));
+        ToolSetDeltaDto delta = convert(spec(paths, schemas()), first.fingerprint(), false);
+
+        assertEquals(first.fingerprint(), delta.previous());
+        assertEquals(List.of("list_toys"), names(delta.added()));
+        assertEquals(List.of("list_all_stores"), names(delta.changed()));
+        assertEquals(List.of("add_owner"), names(delta.removed()));
+    }
+
+    @Test
+    void reportsEveryPathReferencingChangedComponent() throws Exception {
+        ToolSetDeltaDto first = convert(spec(paths(), schemas()), null, false);
+
+        // Address is referenced by Pet and Owner, so both bodies change, while list_pets on the same path does not
+        Map<String, Object> schemas = schemas();
+        schemas.put("Address", object(Map.of("street", Map.of("type", "string"), "zip", Map.of("type", "string"))));
+        ToolSetDeltaDto delta = convert(spec(paths(), schemas), first.fingerprint(), false);
+
+        assertTrue(delta.added().isEmpty());
+        assertEquals(List.of("add_pet", "add_owner"), names(delta.changed()));
+        assertTrue(delta.removed().isEmpty());
+        assertTrue(delta.changed().get(0).inputSchema().toString().contains("zip"));
+    }
+
+    @Test
+    void unchangedVersionYieldsEmptyDelta() throws Exception {
+        ToolSetDeltaDto first = convert(spec(paths(), schemas()), null, false);
+        ToolSetDeltaDto again = convert(spec(paths(), schemas()), first.fingerprint(), true);
+
+        assertEquals(first.fingerprint(), again.fingerprint());
+        assertTrue(again.added().isEmpty() && again.changed().isEmpty() && again.removed().isEmpty());
+        // The full tool set is assembled from the snapshot of the previous version
+        assertEquals(first.added(), Arrays.asList(again.toolSet().tools()));
+    }
+
+    @Test
+    void unknownPreviousVersionConvertsAllPaths() throws Exception {
+        convert(spec(paths(), schemas()), null, false);
+        Map<String, Object> paths = paths();
+        paths.remove("/stores");
+
+        ToolSetDeltaDto delta = convert(spec(paths, schemas()), "unknown", true);
+
+        assertNull(delta.previous());
+        assertEquals(List.of("add_pet", "list_pets", "add_owner"), names(delta.added()));
+        assertTrue(delta.removed().isEmpty());
+        assertEquals("test_api", delta.toolSet().name());
+        assertEquals(delta.added(), Arrays.asList(delta.toolSet().tools()));
+    }
+
+    @Test
+    void fingerprintCoversRevision() throws Exception {
+        ToolSetDeltaDto first = convert(spec(paths(), schemas()), null, false);
+        // Another maximum schema depth is another revision of the mapping rules
+        ToolSetDeltaDto other = service(8).convert(spec(paths(), schemas()), "openapi", null, false,
+                new ConversionProfile());
+
+        assertNotEquals(first.fingerprint(), other.fingerprint());
+        assertEquals(first.fingerprint().substring(0, 64), other.fingerprint().substring(0, 64));
+    }
+
+    private static DeltaConversionServiceImpl service(int maxSchemaDepth) {
+        return new DeltaConversionServiceImpl(new OpenApiMapper(maxSchemaDepth, 0, 0, true, ConversionLimits.NONE),
+                new ToolSetOptimizer(true, 20, 1000, DataSize.ofKilobytes(256), new SchemaPool(false)), metrics(),
+                16, Duration.ofHours(1));
+    }
+
+    private ToolSetDeltaDto convert(Map<String, Object> spec, String previous, boolean full) throws Exception {
+        return service.convert(spec, "openapi", previous, full, new ConversionProfile());
+    }
+
+    private static List<String> names(List<ToolDto> tools) {
+        return tools.stream().map(ToolDto::name).toList();
+    }
+
+    private static Map<String, Object> spec(Map<String, Object> paths, Map<String, Object> schemas) {
+        return Map.of("openapi", "3.0.3", "info", Map.of("title", "Test API", "version", "1"),
+                "servers", List.of(Map.of("url", "https://api.example.com")),
+                "paths", paths, "components", Map.of("schemas", schemas));
+    }
+
+    private static Map<String, Object> paths() {
+        Map<String, Object> paths = new LinkedHashMap<>();
+        paths.put("/pets", Map.of("get", operation("List pets", null), "post", operation("Add pet", "Pet")));
+        paths.put("/owners", Map.of("post", operation("Add owner", "Owner")));
+        paths.put("/stores", Map.of("get", operation("List stores", null)));
+        return paths;
+    }
+
+    private static Map<String, Object> schemas() {
+        Map<String, Object> schemas = new LinkedHashMap<>();
+        schemas.put("Pet", object(Map.of("name", Map.of("type", "string"), "home", ref("Address"))));
+        schemas.put("Owner", object(Map.of("address", ref("Address"))));
+        schemas.put("Address", object(Map.of("street", Map.of("type", "string"))));
+        return schemas;
+    }
+
+    // Helper: an operation with a query parameter, or with a body referencing a component
+    private static Map<String, Object> operation(String summary, String body) {
+        Map<String, Object> op = new LinkedHashMap<>();
+        op.put("summary", summary);
+        if (body == null) {
+            op.put("parameters", List.of(Map.of("name", "limit", "in", "query", "schema", Map.of("type", "integer"))));
+        } else {
+            op.put("requestBody", Map.of("content", Map.of("application/json", Map.of("schema", ref(body)))));
+        }
+        op.put("responses", Map.of("200", Map.of("description", "OK")));
+        return op;
+    }
+
+    private static Map<String, Object> object(Map<String, Object> properties) {
+        return Map.of("type", "object", "properties", new LinkedHashMap<>(properties));
+    }
+
+    private static Map<String, Object> ref(String name) {
+        return Map.of("$ref", "#/components/schemas/" + name);
+    }
+
+    private static ConversionMetrics metrics() {
+        return new ConversionMetrics(new SimpleMeterRegistry(), new ConversionCache(0, Duration.ZERO),
+                new ToolSetStore(false, Path.of("unused"), DataSize.ofMegabytes(1)),
+                new ToolRegistry(0, Duration.ZERO), new SchemaPool(false));
+    }
+}